@@ -0,0 +1,66 @@
+package com.mariobros.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.headless.NoopGL20;
+import com.mariobros.screens.LevelScreen;
+
+/**
+ * Sets up a level for benchmarks. The headless backend is started once per JVM and the game is
+ * created the same way the launchers create it, so the benchmarks run against the real level.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public final class BenchmarkLevel {
+
+    /**
+     * true once the headless backend has been started.
+     */
+    private static boolean initialized = false;
+
+    private BenchmarkLevel() {
+    }
+
+    /**
+     * Starts the headless backend if that has not happened yet. The backend does not run a
+     * main loop, it only provides the Gdx globals.
+     */
+    public static synchronized void initialize() {
+        if (!initialized) {
+            HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+            config.renderInterval = -1;
+            new HeadlessApplication(new ApplicationAdapter() { }, config);
+            Gdx.gl = Gdx.gl20 = new NoopGL20();
+            initialized = true;
+        }
+    }
+
+    /**
+     * Creates a new game with the first level loaded. The assets are loaded at once instead of
+     * through the loading screen.
+     * @return The game.
+     */
+    public static SuperMarioBros createGame() {
+        initialize();
+        SuperMarioBros game = new SuperMarioBros();
+        game.create();
+        game.manager.finishLoading();
+        game.startLevel();
+        return game;
+    }
+
+    /**
+     * Returns the level of the game.
+     * @param game The game to get the level from.
+     * @return The level that is being played.
+     */
+    public static LevelScreen getLevel(SuperMarioBros game) {
+        return (LevelScreen) game.getScreen();
+    }
+}
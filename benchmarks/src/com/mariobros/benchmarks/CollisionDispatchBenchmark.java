@@ -0,0 +1,145 @@
+package com.mariobros.benchmarks;
+
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.World;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.sprites.enemies.Goomba;
+import com.mariobros.sprites.tileobjects.Brick;
+import com.mariobros.tools.WorldCollisionListener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures dispatching a begin contact through the collision listener for each pair of
+ * categories the game reacts to. The contact is stubbed so only the dispatch and the reaction
+ * of the game objects are measured, not the Box2D narrow phase.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+@State(Scope.Thread)
+public class CollisionDispatchBenchmark {
+
+    /**
+     * The pair of categories that collide.
+     */
+    @Param({"MARIO_HEAD_BLOCK", "MARIO_ENEMY_WEAKNESS", "MARIO_ENEMY"})
+    public String pair;
+
+    /**
+     * The game that is benchmarked.
+     */
+    private SuperMarioBros game;
+
+    /**
+     * The listener that dispatches the contacts.
+     */
+    private WorldCollisionListener listener;
+
+    /**
+     * The contact that is dispatched.
+     */
+    private Contact contact;
+
+    @Setup
+    public void setup() {
+        game = BenchmarkLevel.createGame();
+        LevelScreen level = BenchmarkLevel.getLevel(game);
+        World world = level.getWorld();
+        Goomba goomba = new Goomba(level);
+        goomba.defineEnemy();
+        MapObject blockObject = level.getMap().getLayers().get("Blocks").getObjects()
+                .getByType(RectangleMapObject.class).first();
+        Brick brick = new Brick(level, blockObject);
+
+        Body body = world.createBody(new BodyDef());
+        Fixture fixA;
+        Fixture fixB;
+        if ("MARIO_HEAD_BLOCK".equals(pair)) {
+            fixA = createFixture(body, SuperMarioBros.MARIO_HEAD_BIT, level.getPlayer());
+            fixB = createFixture(body, SuperMarioBros.BLOCK_BIT, brick);
+        } else if ("MARIO_ENEMY_WEAKNESS".equals(pair)) {
+            fixA = createFixture(body, SuperMarioBros.ENEMY_WEAKNESS_BIT, goomba);
+            fixB = createFixture(body, SuperMarioBros.MARIO_BIT, level.getPlayer());
+        } else if ("MARIO_ENEMY".equals(pair)) {
+            fixA = createFixture(body, SuperMarioBros.MARIO_BIT, level.getPlayer());
+            fixB = createFixture(body, SuperMarioBros.ENEMY_BIT, goomba);
+        } else {
+            throw new IllegalArgumentException("Unknown pair " + pair);
+        }
+        listener = new WorldCollisionListener();
+        contact = new StubContact(world, fixA, fixB);
+    }
+
+    @TearDown
+    public void tearDown() {
+        game.dispose();
+    }
+
+    /**
+     * Creates a sensor fixture with the given category and user data.
+     * @param body The body to add the fixture to.
+     * @param category The category of the fixture.
+     * @param userData The user data of the fixture.
+     * @return The new fixture.
+     */
+    private Fixture createFixture(Body body, short category, Object userData) {
+        CircleShape shape = new CircleShape();
+        shape.setRadius(1 / SuperMarioBros.PPM);
+        FixtureDef fdef = new FixtureDef();
+        fdef.shape = shape;
+        fdef.isSensor = true;
+        fdef.filter.categoryBits = category;
+        fdef.filter.maskBits = 0;
+        Fixture fixture = body.createFixture(fdef);
+        fixture.setUserData(userData);
+        shape.dispose();
+        return fixture;
+    }
+
+    @Benchmark
+    public void beginContact() {
+        listener.beginContact(contact);
+    }
+
+    /**
+     * A contact between two fixed fixtures.
+     */
+    private static class StubContact extends Contact {
+
+        private final Fixture fixA;
+
+        private final Fixture fixB;
+
+        public StubContact(World world, Fixture fixA, Fixture fixB) {
+            super(world, 0);
+            this.fixA = fixA;
+            this.fixB = fixB;
+        }
+
+        @Override
+        public Fixture getFixtureA() {
+            return fixA;
+        }
+
+        @Override
+        public Fixture getFixtureB() {
+            return fixB;
+        }
+    }
+}
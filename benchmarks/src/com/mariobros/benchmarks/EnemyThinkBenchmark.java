@@ -0,0 +1,181 @@
+package com.mariobros.benchmarks;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.components.InactiveComponent;
+import com.mariobros.desktop.ForkJoinJobSystem;
+import com.mariobros.interfaces.JobSystem;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.sprites.enemies.Enemy;
+import com.mariobros.sprites.hero.Mario;
+import com.mariobros.systems.EnemySystem;
+import com.mariobros.tools.SerialJobSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures how the enemy system scales with the number of threads, for levels with hundreds of
+ * enemies. The enemies plan a jump every step, which stands in for the decisions of real enemies,
+ * and apply it as an impulse afterwards. Thread count 0 is the serial job system the game uses by
+ * default; more cores can be measured with {@code -p threads=...}.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+@State(Scope.Thread)
+public class EnemyThinkBenchmark {
+
+    /**
+     * The time of a single physics step.
+     */
+    private static final float STEP_TIME = 1 / 60f;
+
+    /**
+     * The number of threads, 0 for the serial job system.
+     */
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    /**
+     * The number of active enemies.
+     */
+    @Param({"200", "1000"})
+    public int enemies;
+
+    /**
+     * The game that is benchmarked.
+     */
+    private SuperMarioBros game;
+
+    /**
+     * The system that runs the enemies.
+     */
+    private EnemySystem system;
+
+    @Setup
+    public void setup() {
+        game = BenchmarkLevel.createGame();
+        LevelScreen level = BenchmarkLevel.getLevel(game);
+        JobSystem jobs = threads == 0 ? new SerialJobSystem() : new ForkJoinJobSystem(threads);
+        PooledEngine engine = new PooledEngine();
+        system = new EnemySystem(jobs, 0);
+        engine.addSystem(system);
+        for (int i = 0; i < enemies; i++) {
+            PlanningEnemy enemy = new PlanningEnemy(level);
+            enemy.spawn(engine, 1 + i * 0.16f, 2);
+            enemy.getEntity().remove(InactiveComponent.class);
+            enemy.getBody().setActive(true);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        game.dispose();
+    }
+
+    @Benchmark
+    public void enemyStep() {
+        system.update(STEP_TIME);
+    }
+
+    /**
+     * An enemy that tries a number of jumps each step and takes the one that lands closest to
+     * its target.
+     */
+    private static class PlanningEnemy extends Enemy {
+
+        /**
+         * The number of jumps that are tried.
+         */
+        private static final int CANDIDATES = 8;
+
+        /**
+         * The number of steps a jump is followed.
+         */
+        private static final int LOOKAHEAD = 32;
+
+        /**
+         * The gravity of the level.
+         */
+        private static final float GRAVITY = -10;
+
+        /**
+         * Where the enemy wants to land, relative to where it is.
+         */
+        private final Vector2 target = new Vector2(0.5f, 0);
+
+        /**
+         * The impulse of the best jump, applied after thinking.
+         */
+        private final Vector2 impulse = new Vector2();
+
+        /**
+         * The time since the enemy turned around.
+         */
+        private float stateTime;
+
+        public PlanningEnemy(LevelScreen screen) {
+            super(screen);
+        }
+
+        @Override
+        public void defineEnemy() {
+            BodyDef bdef = new BodyDef();
+            bdef.position.set(spawnPosition);
+            bdef.type = BodyDef.BodyType.DynamicBody;
+            body = screen.getWorld().createBody(bdef);
+            screen.getGame().getShapeProfiles().getGoomba().apply(body, this);
+        }
+
+        @Override
+        public void think(float dt) {
+            stateTime += dt;
+            if (stateTime > 2) {
+                stateTime = 0;
+                target.x = -target.x;
+            }
+            final float startY = body.getPosition().y;
+            float best = Float.MAX_VALUE;
+            for (int i = 0; i < CANDIDATES; i++) {
+                final float vx = target.x * (i + 1) / CANDIDATES;
+                float vy = 2 + i * 0.25f;
+                float x = 0;
+                float y = startY;
+                for (int step = 0; step < LOOKAHEAD; step++) {
+                    vy += GRAVITY * dt;
+                    x += vx * dt;
+                    y += vy * dt;
+                }
+                final float distance = Vector2.dst2(x, y - startY, target.x, target.y);
+                if (distance < best) {
+                    best = distance;
+                    impulse.set(vx, vy).scl(0.001f);
+                }
+            }
+        }
+
+        @Override
+        public void update(float dt) {
+            final Vector2 center = body.getWorldCenter();
+            body.applyLinearImpulse(impulse.x, impulse.y, center.x, center.y, true);
+        }
+
+        @Override
+        protected void addComponents(PooledEngine engine, Entity entity) {
+        }
+
+        @Override
+        public void onHit(Mario mario) {
+        }
+    }
+}
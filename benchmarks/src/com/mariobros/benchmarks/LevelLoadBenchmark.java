@@ -0,0 +1,65 @@
+package com.mariobros.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.mariobros.tools.BinaryMapLoader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares loading the world1-1 level from its TMX file with loading it from the compiled
+ * binary level. Every fork loads the level once without warmup, which is what happens when the
+ * game starts.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class LevelLoadBenchmark {
+
+    /**
+     * The map that was loaded by the last invocation.
+     */
+    private TiledMap map;
+
+    @Setup
+    public void setup() {
+        BenchmarkLevel.initialize();
+    }
+
+    @TearDown(Level.Invocation)
+    public void disposeMap() {
+        if (map != null) {
+            map.dispose();
+            map = null;
+        }
+    }
+
+    @Benchmark
+    public TiledMap loadTmx() {
+        map = new TmxMapLoader().load("worlds/world1-1.tmx");
+        return map;
+    }
+
+    @Benchmark
+    public TiledMap loadBinary() {
+        map = new BinaryMapLoader().load("worlds/world1-1" + BinaryMapLoader.EXTENSION);
+        return map;
+    }
+}
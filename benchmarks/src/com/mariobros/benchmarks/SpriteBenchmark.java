@@ -0,0 +1,68 @@
+package com.mariobros.benchmarks;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.scenes.HUD;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.sprites.hero.Mario;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the per frame work of Mario's animation and the HUD.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+@State(Scope.Thread)
+public class SpriteBenchmark {
+
+    /**
+     * The time of a single frame.
+     */
+    private static final float FRAME_TIME = 1 / 60f;
+
+    /**
+     * The game that is benchmarked.
+     */
+    private SuperMarioBros game;
+
+    /**
+     * The player.
+     */
+    private Mario mario;
+
+    /**
+     * The hud of the level.
+     */
+    private HUD hud;
+
+    @Setup
+    public void setup() {
+        game = BenchmarkLevel.createGame();
+        LevelScreen level = BenchmarkLevel.getLevel(game);
+        mario = level.getPlayer();
+        hud = level.getHud();
+    }
+
+    @TearDown
+    public void tearDown() {
+        game.dispose();
+    }
+
+    @Benchmark
+    public TextureRegion marioGetFrame() {
+        return mario.getFrame(FRAME_TIME);
+    }
+
+    @Benchmark
+    public void hudUpdate() {
+        hud.update(FRAME_TIME);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mariobros.benchmarks;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.tools.Box2DWorldCreator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures building all the bodies of the world1-1 level.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+@State(Scope.Thread)
+public class WorldCreatorBenchmark {
+
+    /**
+     * The game that is benchmarked.
+     */
+    private SuperMarioBros game;
+
+    /**
+     * The level the bodies are built for.
+     */
+    private LevelScreen level;
+
+    /**
+     * Reused array for the bodies in the world.
+     */
+    private Array<Body> bodies;
+
+    @Setup
+    public void setup() {
+        game = BenchmarkLevel.createGame();
+        level = BenchmarkLevel.getLevel(game);
+        bodies = new Array<Body>();
+    }
+
+    @TearDown
+    public void tearDown() {
+        game.dispose();
+    }
+
+    /**
+     * Removes every body except for the player's, so each invocation builds the level in an
+     * empty world.
+     */
+    @Setup(Level.Invocation)
+    public void clearWorld() {
+        World world = level.getWorld();
+        world.getBodies(bodies);
+        for (Body body : bodies) {
+            if (body != level.getPlayer().getBody()) {
+                world.destroyBody(body);
+            }
+        }
+    }
+
+    @Benchmark
+    public Box2DWorldCreator createWorld() {
+        return new Box2DWorldCreator(level);
+    }
+}
@@ -0,0 +1,70 @@
+package com.mariobros.benchmarks;
+
+import com.badlogic.gdx.physics.box2d.World;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.tools.PerformanceProfile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures a single Box2D step of the world1-1 level and a full fixed step of the level, for
+ * the solver iterations of every performance profile.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+@State(Scope.Thread)
+public class WorldStepBenchmark {
+
+    /**
+     * The performance profile the level runs with.
+     */
+    @Param({"LOW", "BALANCED", "HIGH"})
+    public String profile;
+
+    /**
+     * The game that is benchmarked.
+     */
+    private SuperMarioBros game;
+
+    /**
+     * The level that is stepped.
+     */
+    private LevelScreen level;
+
+    /**
+     * The world of the level.
+     */
+    private World world;
+
+    @Setup
+    public void setup() {
+        game = BenchmarkLevel.createGame();
+        level = BenchmarkLevel.getLevel(game);
+        game.setPerformanceProfile(PerformanceProfile.forName(profile));
+        world = level.getWorld();
+    }
+
+    @TearDown
+    public void tearDown() {
+        game.dispose();
+    }
+
+    @Benchmark
+    public void worldStep() {
+        world.step(level.getStepTime(), level.getVelocityIterations(), level.getPositionIterations());
+    }
+
+    @Benchmark
+    public void levelStep() {
+        level.step();
+    }
+}
@@ -4,13 +4,30 @@ import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.mariobros.interfaces.JobSystem;
+import com.mariobros.interfaces.ProfileListener;
 import com.mariobros.interfaces.Updateable;
 import com.mariobros.screens.LevelScreen;
+import com.mariobros.screens.LoadingScreen;
+import com.mariobros.tools.AnimationSets;
+import com.mariobros.tools.AnimationSetsLoader;
+import com.mariobros.tools.BinaryMapLoader;
+import com.mariobros.tools.InputRecorder;
+import com.mariobros.tools.InputRecording;
+import com.mariobros.tools.LevelManager;
+import com.mariobros.tools.PackedAtlas;
+import com.mariobros.tools.PerformanceProfile;
+import com.mariobros.tools.SerialJobSystem;
+import com.mariobros.tools.ShapeProfiles;
 
 /**
  * The Super Mario Brothers game.
@@ -32,6 +49,72 @@ public class SuperMarioBros extends Game {
 	 */
 	public AssetManager manager;
 
+	/**
+	 * The tag used for logging.
+	 */
+	private static final String TAG = "SuperMarioBros";
+
+	/**
+	 * The first level, without extension.
+	 */
+	public static final String LEVEL = "worlds/world1-1";
+
+	/**
+	 * The levels of the game.
+	 */
+	private LevelManager levels;
+
+	/**
+	 * The id of the level that is played, or that is loaded to be played next.
+	 */
+	private String level;
+
+	/**
+	 * The shapes of the bodies of mario and the enemies, shared by all levels.
+	 */
+	private ShapeProfiles shapeProfiles;
+
+	/**
+	 * The time the game was created, in milliseconds.
+	 */
+	private long createTime;
+
+	/**
+	 * The time from creating the game to the first frame of the level, in milliseconds, or -1
+	 * if the level has not been drawn yet.
+	 */
+	private long timeToFirstFrame = -1;
+
+	/**
+	 * The performance profile the game runs with.
+	 */
+	private PerformanceProfile performanceProfile = PerformanceProfile.BALANCED;
+
+	/**
+	 * Applies the parts of the performance profile that belong to the platform, or null.
+	 */
+	private ProfileListener profileListener;
+
+	/**
+	 * The job system per-entity work is spread over.
+	 */
+	private JobSystem jobSystem = new SerialJobSystem();
+
+	/**
+	 * The file the input of the level is recorded to, or null if the input is not recorded.
+	 */
+	private FileHandle recordingFile;
+
+	/**
+	 * The recording of the input of the level, or null if the input is not recorded.
+	 */
+	private InputRecording recording;
+
+	/**
+	 * The TMX file whose changes are applied to the level while playing, or null.
+	 */
+	private FileHandle reloadFile;
+
 	//Virtual Screen size and Box2D Scale(Pixels Per Meter)
 	/**
 	 * Virtual width of the game.
@@ -92,22 +175,221 @@ public class SuperMarioBros extends Game {
 	 * The bit identifying the enemies weakness.
 	 */
 	public static final short ENEMY_WEAKNESS_BIT = 256;
+
+	/**
+	 * The bit that identifies the goal of a level.
+	 */
+	public static final short GOAL_BIT = 512;
 	
 	@Override
 	public void create () {
+		createTime = TimeUtils.millis();
 		batch = new SpriteBatch();
 		manager = new AssetManager();
-		manager.load("mario-sheet-32x32.txt", TextureAtlas.class);
-		manager.load("items.txt", TextureAtlas.class);
-		manager.load("tileset.txt", TextureAtlas.class);
-		manager.load("used_block_16x16.png", Texture.class);
-		manager.finishLoading();
-		setScreen(new LevelScreen(this));
+		manager.setLoader(TiledMap.class, new TmxMapLoader(new InternalFileHandleResolver()));
+		manager.setLoader(TiledMap.class, BinaryMapLoader.EXTENSION, new BinaryMapLoader(new InternalFileHandleResolver()));
+		manager.setLoader(AnimationSets.class, new AnimationSetsLoader(new InternalFileHandleResolver()));
+		Box2D.init();
+		shapeProfiles = new ShapeProfiles();
+		levels = new LevelManager(this);
+		levels.add("1-1", LEVEL);
+		level = levels.getFirst();
+		PackedAtlas.load(manager);
+		levels.load(level);
+		setScreen(new LoadingScreen(this));
+	}
+
+	/**
+	 * Returns the file a level is loaded from. The compiled binary level is used when it
+	 * exists, otherwise the TMX file.
+	 * @param level The path of the level without extension.
+	 * @return The file name of the level.
+	 */
+	public static String getLevelFileName(String level) {
+		String compiled = level + BinaryMapLoader.EXTENSION;
+		if (Gdx.files.internal(compiled).exists()) {
+			return compiled;
+		}
+		return level + ".tmx";
+	}
+
+	/**
+	 * Starts the level. All assets must be loaded. Only the first level that is started is
+	 * recorded, and only the level whose TMX file is the reload file follows its changes.
+	 */
+	public void startLevel() {
+		LevelScreen screen = levels.start(level);
+		final String path = levels.getPath(level);
+		if (recordingFile != null && recording == null) {
+			recording = new InputRecording(path, screen.getStepRate(), performanceProfile);
+			screen.setInputSource(new InputRecorder(screen.getInputSource(), recording));
+		}
+		if (reloadFile != null && reloadFile.nameWithoutExtension().equals(new FileHandle(path).name())) {
+			screen.setReloadFile(reloadFile);
+		}
+		setScreen(screen);
+	}
+
+	/**
+	 * Ends the level that is played and starts the next one. If the next level was loaded while
+	 * playing it starts right away, otherwise it is loaded first. This is called by the level at
+	 * the end of the frame in which mario reached the goal.
+	 */
+	public void finishLevel() {
+		final LevelScreen finished = (LevelScreen) getScreen();
+		stopRecording();
+		level = levels.getNext(finished.getLevel());
+		// Disposed first, so its changes are gone before the next level uses the same map.
+		finished.dispose();
+		if (levels.isLoaded(level)) {
+			final long start = TimeUtils.nanoTime();
+			startLevel();
+			Gdx.app.log(TAG, "Started level " + level + " in " + TimeUtils.timeSinceNanos(start) / 1000000 + " ms");
+		} else {
+			levels.load(level);
+			setScreen(new LoadingScreen(this));
+		}
+	}
+
+	/**
+	 * Writes the recording, if the input is recorded, with the final state of the recorded level.
+	 */
+	private void stopRecording() {
+		if (recording != null && recordingFile != null) {
+			recording.setFinalState(((LevelScreen) getScreen()).getPlayer());
+			recording.write(recordingFile);
+			Gdx.app.log(TAG, "Recorded " + recording.getStepCount() + " steps to " + recordingFile);
+			recordingFile = null;
+		}
+	}
+
+	/**
+	 * Returns the levels of the game.
+	 * @return The level manager.
+	 */
+	public LevelManager getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Makes the level follow the changes of its TMX file. The platform watches the file and
+	 * calls {@link #reloadLevel(long)} on the render thread when it changes. This must be called
+	 * before the level starts.
+	 * @param file The TMX file of the level.
+	 */
+	public void setReloadFile(FileHandle file) {
+		reloadFile = file;
+	}
+
+	/**
+	 * Applies the changes of the TMX file to the level that is played, if there is one. This
+	 * must be called on the render thread.
+	 * @param changedAt The time the change of the file was seen, from {@link TimeUtils#nanoTime()}.
+	 */
+	public void reloadLevel(long changedAt) {
+		if (getScreen() instanceof LevelScreen) {
+			((LevelScreen) getScreen()).reloadLevel(changedAt);
+		}
+	}
+
+	/**
+	 * Records the buttons of every physics step of the level. The recording is written when
+	 * the game is disposed. This must be called before the level starts.
+	 * @param file The file to write the recording to.
+	 */
+	public void setRecordingFile(FileHandle file) {
+		recordingFile = file;
+	}
+
+	/**
+	 * Checks if the input of the level is recorded.
+	 * @return true if a recording has been started and not written yet.
+	 */
+	public boolean isRecording() {
+		return recording != null && recordingFile != null;
+	}
+
+	/**
+	 * Switches to another performance profile. The level applies the profile right away and
+	 * the profile listener is told about the change.
+	 * @param profile The new profile.
+	 */
+	public void setPerformanceProfile(PerformanceProfile profile) {
+		performanceProfile = profile;
+		if (getScreen() instanceof LevelScreen) {
+			((LevelScreen) getScreen()).setPerformanceProfile(profile);
+		}
+		if (profileListener != null) {
+			profileListener.profileChanged(profile);
+		}
+	}
+
+	/**
+	 * Returns the performance profile the game runs with.
+	 * @return The current profile.
+	 */
+	public PerformanceProfile getPerformanceProfile() {
+		return performanceProfile;
+	}
+
+	/**
+	 * Sets the listener that applies the parts of a performance profile that belong to the
+	 * platform. It is told about every later change of the profile.
+	 * @param listener The listener, or null.
+	 */
+	public void setProfileListener(ProfileListener listener) {
+		profileListener = listener;
+	}
+
+	/**
+	 * Sets the job system per-entity work is spread over. It is used by the levels that start
+	 * after this call. The game runs jobs on the render thread unless it is given another.
+	 * @param jobs The job system.
+	 */
+	public void setJobSystem(JobSystem jobs) {
+		jobSystem = jobs;
+	}
+
+	/**
+	 * Returns the job system per-entity work is spread over.
+	 * @return The job system.
+	 */
+	public JobSystem getJobSystem() {
+		return jobSystem;
+	}
+
+	/**
+	 * Called by the level when its first frame has been drawn.
+	 */
+	public void firstFrameRendered() {
+		if (timeToFirstFrame < 0) {
+			timeToFirstFrame = TimeUtils.timeSinceMillis(createTime);
+			Gdx.app.log(TAG, "Time to first frame: " + timeToFirstFrame + " ms");
+		}
+	}
+
+	/**
+	 * Returns the shapes of the bodies of mario and the enemies.
+	 * @return The shape profiles.
+	 */
+	public ShapeProfiles getShapeProfiles() {
+		return shapeProfiles;
+	}
+
+	/**
+	 * Returns the time from creating the game to the first frame of the level.
+	 * @return The time to the first frame in milliseconds, or -1 if the level has not been drawn.
+	 */
+	public long getTimeToFirstFrame() {
+		return timeToFirstFrame;
 	}
 	
 	@Override
 	public void dispose () {
+		stopRecording();
 		super.dispose();
+		levels.dispose();
+		shapeProfiles.dispose();
 		batch.dispose();
 		manager.dispose();
 	}
@@ -0,0 +1,40 @@
+package com.mariobros.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Component for entities whose sprite is animated.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class AnimationComponent implements Component, Pool.Poolable {
+
+    /**
+     * The animation that is played.
+     */
+    public Animation<TextureRegion> animation;
+
+    /**
+     * The time the animation has been playing.
+     */
+    public float stateTime;
+
+    /**
+     * true if the animation starts over when it ends.
+     */
+    public boolean looping = true;
+
+    @Override
+    public void reset() {
+        animation = null;
+        stateTime = 0;
+        looping = true;
+    }
+}
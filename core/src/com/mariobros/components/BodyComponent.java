@@ -0,0 +1,34 @@
+package com.mariobros.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Component for entities that are simulated by Box2D.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class BodyComponent implements Component, Pool.Poolable {
+
+    /**
+     * The body of the entity.
+     */
+    public Body body;
+
+    /**
+     * The position of the body before the last physics step.
+     */
+    public final Vector2 previousPosition = new Vector2();
+
+    @Override
+    public void reset() {
+        body = null;
+        previousPosition.setZero();
+    }
+}
@@ -0,0 +1,27 @@
+package com.mariobros.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.utils.Pool;
+import com.mariobros.sprites.enemies.Enemy;
+
+/**
+ * Component for entities that are enemies. The enemy holds the behaviour of the entity.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class EnemyComponent implements Component, Pool.Poolable {
+
+    /**
+     * The behaviour of the enemy.
+     */
+    public Enemy enemy;
+
+    @Override
+    public void reset() {
+        enemy = null;
+    }
+}
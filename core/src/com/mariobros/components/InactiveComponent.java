@@ -0,0 +1,17 @@
+package com.mariobros.components;
+
+import com.badlogic.ashley.core.Component;
+
+/**
+ * Marks an entity whose body is not simulated because it is far from the camera. Systems
+ * that update or draw entities skip entities with this component.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class InactiveComponent implements Component {
+
+}
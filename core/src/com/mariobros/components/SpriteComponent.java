@@ -0,0 +1,57 @@
+package com.mariobros.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Component for entities that are drawn. The bounds are in world units.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class SpriteComponent implements Component, Pool.Poolable {
+
+    /**
+     * The region that is drawn, or null to draw nothing.
+     */
+    public TextureRegion region;
+
+    /**
+     * The x coordinate of the lower left corner.
+     */
+    public float x;
+
+    /**
+     * The y coordinate of the lower left corner.
+     */
+    public float y;
+
+    /**
+     * The width of the sprite.
+     */
+    public float width;
+
+    /**
+     * The height of the sprite.
+     */
+    public float height;
+
+    /**
+     * true if the region is drawn mirrored.
+     */
+    public boolean flipX;
+
+    @Override
+    public void reset() {
+        region = null;
+        x = 0;
+        y = 0;
+        width = 0;
+        height = 0;
+        flipX = false;
+    }
+}
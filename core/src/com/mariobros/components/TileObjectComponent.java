@@ -0,0 +1,27 @@
+package com.mariobros.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.utils.Pool;
+import com.mariobros.sprites.tileobjects.InteractiveTileObject;
+
+/**
+ * Component for entities that are interactive objects of the map, such as bricks.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class TileObjectComponent implements Component, Pool.Poolable {
+
+    /**
+     * The object on the map.
+     */
+    public InteractiveTileObject object;
+
+    @Override
+    public void reset() {
+        object = null;
+    }
+}
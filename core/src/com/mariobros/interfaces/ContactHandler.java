@@ -0,0 +1,56 @@
+package com.mariobros.interfaces;
+
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.Manifold;
+
+/**
+ * Handles the contacts between two catagories of fixtures. The participants are the user data
+ * of the fixtures, always in the order the handler was registered in, so the handler never has
+ * to find out which fixture is which.
+ *
+ * @param <A> The type of the user data of the first catagory.
+ * @param <B> The type of the user data of the second catagory.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public interface ContactHandler<A, B> {
+
+    /**
+     * Called when the fixtures start touching.
+     * @param a The first participant.
+     * @param b The second participant.
+     * @param contact The contact.
+     */
+    public void beginContact(A a, B b, Contact contact);
+
+    /**
+     * Called when the fixtures stop touching.
+     * @param a The first participant.
+     * @param b The second participant.
+     * @param contact The contact.
+     */
+    public void endContact(A a, B b, Contact contact);
+
+    /**
+     * Called before the contact is solved.
+     * @param a The first participant.
+     * @param b The second participant.
+     * @param contact The contact.
+     * @param oldManifold The manifold of the previous step.
+     */
+    public void preSolve(A a, B b, Contact contact, Manifold oldManifold);
+
+    /**
+     * Called after the contact is solved.
+     * @param a The first participant.
+     * @param b The second participant.
+     * @param contact The contact.
+     * @param impulse The impulse that was applied.
+     */
+    public void postSolve(A a, B b, Contact contact, ContactImpulse impulse);
+}
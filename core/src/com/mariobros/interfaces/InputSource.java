@@ -0,0 +1,46 @@
+package com.mariobros.interfaces;
+
+/**
+ * Interface for the things the level reads its input from. The input is read once per physics
+ * step as a set of buttons, so the same buttons give the same simulation no matter how the
+ * steps were spread over frames.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public interface InputSource {
+
+    /**
+     * The bit of the up button, which makes mario jump.
+     */
+    public static final int UP = 1;
+
+    /**
+     * The bit of the left button.
+     */
+    public static final int LEFT = 2;
+
+    /**
+     * The bit of the right button.
+     */
+    public static final int RIGHT = 4;
+
+    /**
+     * The bit of the down button.
+     */
+    public static final int DOWN = 8;
+
+    /**
+     * Looks at the input that has to be seen every frame, such as keys that were just pressed.
+     */
+    public void poll();
+
+    /**
+     * Returns the buttons for the next physics step.
+     * @return The bits of the buttons that are active during the step.
+     */
+    public int nextStep();
+}
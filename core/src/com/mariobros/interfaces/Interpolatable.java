@@ -0,0 +1,26 @@
+package com.mariobros.interfaces;
+
+/**
+ * Interface for things that are simulated at a fixed rate but drawn at the frame rate. The
+ * physics state from before the last step is remembered so the drawn position can be blended
+ * between the last two steps.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public interface Interpolatable {
+
+    /**
+     * Remembers the current physics state. This is called right before every physics step.
+     */
+    public void savePreviousState();
+
+    /**
+     * Moves the drawn state between the previous and the current physics state.
+     * @param alpha How far the renderer is between the previous step (0) and the current step (1).
+     */
+    public void interpolate(float alpha);
+}
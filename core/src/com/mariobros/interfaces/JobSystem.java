@@ -0,0 +1,43 @@
+package com.mariobros.interfaces;
+
+/**
+ * Interface for running work that is independent per item on several threads. The game only
+ * uses the serial job system of the core, so it also runs where there are no threads; the
+ * launchers of platforms that have them can give the game a parallel one.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public interface JobSystem {
+
+    /**
+     * Work on a range of items. The items of a range are independent of the items of other
+     * ranges, so ranges may be run at the same time.
+     */
+    public interface Job {
+
+        /**
+         * Does the work for a range of items.
+         * @param from The first item.
+         * @param to The item after the last item.
+         */
+        public void run(int from, int to);
+    }
+
+    /**
+     * Runs a job for all items and returns when it is done for every item. The items are split
+     * into ranges, which may run on other threads.
+     * @param count The number of items.
+     * @param job The job.
+     */
+    public void run(int count, Job job);
+
+    /**
+     * Returns the number of threads the jobs are spread over.
+     * @return The number of threads, 1 if jobs run on the calling thread.
+     */
+    public int getThreads();
+}
@@ -0,0 +1,22 @@
+package com.mariobros.interfaces;
+
+import com.mariobros.tools.PerformanceProfile;
+
+/**
+ * Interface for the platform code that applies the parts of a performance profile the game
+ * itself can not change, such as the frame rate limit of the launcher.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public interface ProfileListener {
+
+    /**
+     * Called when the game switches to another performance profile.
+     * @param profile The new profile.
+     */
+    public void profileChanged(PerformanceProfile profile);
+}
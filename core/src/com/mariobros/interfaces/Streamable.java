@@ -0,0 +1,46 @@
+package com.mariobros.interfaces;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Interface for map objects whose Box2D bodies only exist while they are near the camera.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public interface Streamable {
+
+    /**
+     * Returns the bounds of the object on the map, in map pixels. These bounds are used to find
+     * the object when the camera comes near.
+     * @return The bounds on the map.
+     */
+    public Rectangle getBounds();
+
+    /**
+     * Checks if the object currently has a body in the world.
+     * @return true if the object is streamed in.
+     */
+    public boolean isStreamedIn();
+
+    /**
+     * Creates the body of the object.
+     */
+    public void streamIn();
+
+    /**
+     * Destroys the body of the object.
+     */
+    public void streamOut();
+
+    /**
+     * Checks if the object is currently somewhere between left and right.
+     * @param left The left side, in map pixels.
+     * @param right The right side, in map pixels.
+     * @return true if the object is between left and right.
+     */
+    public boolean isWithin(float left, float right);
+}
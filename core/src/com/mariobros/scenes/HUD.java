@@ -1,20 +1,28 @@
 package com.mariobros.scenes;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.scenes.scene2d.Stage;
-import com.badlogic.gdx.scenes.scene2d.ui.Label;
-import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.StringBuilder;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.mariobros.SuperMarioBros;
 import com.mariobros.interfaces.Updateable;
 
 /**
- * The HUD for the game.
+ * The HUD for the game. It shows the score, the level and the time left. The text only changes
+ * a few times per second, so it is drawn into a frame buffer when it changes and every frame
+ * only that buffer is drawn. The numbers are written into reused buffers, so updating the HUD
+ * does not create garbage.
  *
  * @version 1.0
  * @since 1.0
@@ -24,22 +32,27 @@ import com.mariobros.interfaces.Updateable;
 
 public class HUD implements Disposable, Updateable {
 
-    private SpriteBatch sb;
-
     /**
-     * The stage to add the things to.
+     * The distance of the text to the top of the screen.
      */
-    public Stage stage;
+    private static final float PADDING = 10;
+
+    private SpriteBatch sb;
 
     /**
      * The view of this HUD.
      */
     private Viewport view;
 
+    /**
+     * The font of the text.
+     */
+    private final BitmapFont font;
+
     /**
      * Keeps track of the score in the game.
      */
-    private static int score;
+    private int score;
 
     /**
      * The current time left for the level.
@@ -52,39 +65,63 @@ public class HUD implements Disposable, Updateable {
     private int initialTime;
 
     /**
-     * Label for the time.
+     * The laid out text of the score.
+     */
+    private final GlyphLayout scoreLayout = new GlyphLayout();
+
+    /**
+     * The laid out text of the level.
      */
-    private Label countdownLabel;
+    private final GlyphLayout levelLayout = new GlyphLayout();
 
     /**
-     * Label for the score.
+     * The laid out text of the time.
      */
-    private static Label scoreLabel;
+    private final GlyphLayout countdownLayout = new GlyphLayout();
 
     /**
      * variable to improve counting.
      */
     private float countTime;
 
+    /**
+     * Reused buffer for the text of the numbers, so updating them does not create strings.
+     */
+    private final StringBuilder text = new StringBuilder(8);
+
+    /**
+     * The buffer the text is drawn into, or null if it has not been created for the current
+     * size of the screen.
+     */
+    private FrameBuffer buffer;
+
+    /**
+     * The region of the buffer, flipped because buffers are stored upside down.
+     */
+    private TextureRegion bufferRegion;
+
+    /**
+     * The projection of the HUD coordinates onto the buffer.
+     */
+    private final Matrix4 bufferProjection = new Matrix4();
+
+    /**
+     * true if the text changed since it was drawn into the buffer.
+     */
+    private boolean dirty = true;
+
     public HUD(SpriteBatch sb, String currentLevel, int initialTime) {
         this.sb = sb;
-        score = 0;
         setInitialTime(initialTime);
         countTime = 0;
-
         view = new FitViewport(SuperMarioBros.V_WIDTH, SuperMarioBros.V_HEIGHT, new OrthographicCamera());
-        stage = new Stage(view, sb);
-
-        scoreLabel =new Label(String.format("%06d", score), new Label.LabelStyle(new BitmapFont(), Color.WHITE));
-        countdownLabel = new Label("", new Label.LabelStyle(new BitmapFont(), Color.WHITE));
+        view.update(Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), true);
+        bufferProjection.setToOrtho2D(0, 0, SuperMarioBros.V_WIDTH, SuperMarioBros.V_HEIGHT);
+        font = new BitmapFont();
+        font.setColor(Color.WHITE);
+        setLevel(currentLevel);
+        resetScore();
         resetTime();
-
-        Table table = new Table();
-        table.top();
-        table.setFillParent(true);
-        table.add(scoreLabel).expandX().pad(10);
-        table.add(countdownLabel).expandX().pad(10);
-        stage.addActor(table);
     }
 
     /**
@@ -95,18 +132,151 @@ public class HUD implements Disposable, Updateable {
         initialTime = time;
     }
 
+    /**
+     * Shows another level.
+     * @param level The name of the level, for example "1-1".
+     */
+    public void setLevel(String level) {
+        levelLayout.setText(font, level);
+        dirty = true;
+    }
+
     /**
      * Increases the score by added.
      * @param added The score to add.
      */
-    public static void increaseScore(int added) {
+    public void increaseScore(int added) {
         score += added;
-        scoreLabel.setText(String.format("%06d", score));
+        scoreLayout.setText(font, format(score, 6));
+        dirty = true;
+    }
+
+    /**
+     * Returns the score.
+     * @return The score in this level.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Writes a number padded with zeros into the reused text buffer.
+     * @param value The number.
+     * @param digits The minimal number of digits.
+     * @return The text buffer, which is only valid until the next call.
+     */
+    private StringBuilder format(int value, int digits) {
+        text.setLength(0);
+        text.append(value, digits);
+        return text;
+    }
+
+    /**
+     * Updates the view to the new size of the screen. The text is drawn again at the new size.
+     * @param width The width of the screen.
+     * @param height The height of the screen.
+     */
+    public void resize(int width, int height) {
+        view.update(width, height, true);
+        disposeBuffer();
+    }
+
+    /**
+     * Makes the text be drawn into the buffer again, for when the contents of the buffer were
+     * lost with the OpenGL context.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Draws the HUD. The text is only drawn again if it changed, otherwise the buffer is drawn.
+     */
+    public void draw() {
+        if (buffer == null) {
+            createBuffer();
+        }
+        if (dirty) {
+            drawText();
+            dirty = false;
+        }
+        view.apply();
+        sb.setProjectionMatrix(view.getCamera().combined);
+        // The buffer holds premultiplied colors.
+        sb.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        sb.begin();
+        sb.draw(bufferRegion, 0, 0, SuperMarioBros.V_WIDTH, SuperMarioBros.V_HEIGHT);
+        sb.end();
+        sb.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    /**
+     * Creates the buffer with the size the HUD has on the screen, so the text is as sharp as
+     * when it is drawn directly. Before the screen has a size the size of the HUD is used.
+     */
+    private void createBuffer() {
+        int width = view.getScreenWidth();
+        int height = view.getScreenHeight();
+        if (width <= 0 || height <= 0) {
+            width = SuperMarioBros.V_WIDTH;
+            height = SuperMarioBros.V_HEIGHT;
+        }
+        buffer = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
+        bufferRegion = new TextureRegion(buffer.getColorBufferTexture());
+        bufferRegion.flip(false, true);
+        dirty = true;
+    }
+
+    /**
+     * Draws the text into the buffer. The colors are multiplied by their alpha as usual, but the
+     * alpha is not, so the buffer holds premultiplied colors with the coverage of the glyphs as
+     * alpha. Drawing the buffer with premultiplied blending then gives the same pixels as
+     * drawing the text directly.
+     */
+    private void drawText() {
+        buffer.begin();
+        Gdx.gl.glClearColor(0, 0, 0, 0);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        sb.setProjectionMatrix(bufferProjection);
+        // -1 keeps the batch from setting a blend function of its own.
+        sb.setBlendFunction(-1, -1);
+        Gdx.gl.glBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA, GL20.GL_ONE,
+                GL20.GL_ONE_MINUS_SRC_ALPHA);
+        sb.begin();
+        final float y = SuperMarioBros.V_HEIGHT - PADDING;
+        drawCentered(scoreLayout, SuperMarioBros.V_WIDTH / 6f, y);
+        drawCentered(levelLayout, SuperMarioBros.V_WIDTH / 2f, y);
+        drawCentered(countdownLayout, SuperMarioBros.V_WIDTH * 5 / 6f, y);
+        sb.end();
+        sb.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        buffer.end();
+    }
+
+    /**
+     * Draws a text centered around a point.
+     * @param layout The laid out text.
+     * @param x The center of the text.
+     * @param top The top of the text.
+     */
+    private void drawCentered(GlyphLayout layout, float x, float top) {
+        font.draw(sb, layout, x - layout.width / 2, top);
+    }
+
+    /**
+     * Disposes the buffer, it is created again when it is needed.
+     */
+    private void disposeBuffer() {
+        if (buffer != null) {
+            buffer.dispose();
+            buffer = null;
+            bufferRegion = null;
+        }
     }
 
     @Override
     public void dispose() {
-        stage.dispose();
+        disposeBuffer();
+        font.dispose();
     }
 
     public boolean isTimeLeft() {
@@ -120,7 +290,8 @@ public class HUD implements Disposable, Updateable {
             countTime--;
             time--;
             if (isTimeLeft()) {
-                countdownLabel.setText(String.format("%03d", time));
+                countdownLayout.setText(font, format(time, 3));
+                dirty = true;
             }
         }
     }
@@ -130,8 +301,9 @@ public class HUD implements Disposable, Updateable {
      */
     public void resetTime() {
         time = initialTime;
-        countdownLabel.setText(String.format("%03d", time));
+        countdownLayout.setText(font, format(time, 3));
         countTime = 0;
+        dirty = true;
     }
 
     /**
@@ -0,0 +1,195 @@
+package com.mariobros.scenes;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.StringBuilder;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.tools.FrameProfiler;
+
+/**
+ * Shows the p50 and p99 time of every phase of the frame on top of the level, together with
+ * the render calls and texture bindings of the last frame and their mean over the stored
+ * frames. The text is rebuilt every few frames into a reused buffer, so showing the overlay
+ * does not create garbage.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class ProfilerOverlay implements Disposable {
+
+    /**
+     * The number of frames between updates of the text.
+     */
+    private static final int REFRESH_FRAMES = 30;
+
+    /**
+     * The profiler that is shown.
+     */
+    private final FrameProfiler profiler;
+
+    /**
+     * The batch to draw with.
+     */
+    private final SpriteBatch batch;
+
+    /**
+     * The view of the overlay. It is twice the size of the game so the font stays small.
+     */
+    private final Viewport view;
+
+    /**
+     * The font of the text.
+     */
+    private final BitmapFont font;
+
+    /**
+     * The text that is shown.
+     */
+    private final StringBuilder text;
+
+    /**
+     * The number of frames drawn since the text was updated.
+     */
+    private int framesSinceRefresh;
+
+    /**
+     * true if the overlay is shown.
+     */
+    private boolean visible;
+
+    /**
+     * Creates a new hidden overlay.
+     * @param profiler The profiler to show.
+     * @param batch The batch to draw with.
+     */
+    public ProfilerOverlay(FrameProfiler profiler, SpriteBatch batch) {
+        this.profiler = profiler;
+        this.batch = batch;
+        view = new FitViewport(SuperMarioBros.V_WIDTH * 2, SuperMarioBros.V_HEIGHT * 2);
+        font = new BitmapFont();
+        font.setColor(Color.YELLOW);
+        text = new StringBuilder(512);
+    }
+
+    /**
+     * Shows or hides the overlay. Showing it enables the profiler.
+     * @param visible true to show the overlay.
+     */
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+        if (visible) {
+            profiler.setEnabled(true);
+            framesSinceRefresh = REFRESH_FRAMES;
+        }
+    }
+
+    /**
+     * Checks if the overlay is shown.
+     * @return true if the overlay is visible.
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Shows the overlay if it is hidden and hides it if it is shown.
+     */
+    public void toggle() {
+        setVisible(!visible);
+    }
+
+    /**
+     * Updates the view to the new size of the screen.
+     * @param width The width of the screen.
+     * @param height The height of the screen.
+     */
+    public void resize(int width, int height) {
+        view.update(width, height, true);
+    }
+
+    /**
+     * Draws the overlay if it is visible.
+     */
+    public void draw() {
+        if (!visible) {
+            return;
+        }
+        if (++framesSinceRefresh >= REFRESH_FRAMES) {
+            refresh();
+            framesSinceRefresh = 0;
+        }
+        view.apply();
+        batch.setProjectionMatrix(view.getCamera().combined);
+        batch.begin();
+        font.draw(batch, text, 4, view.getWorldHeight() - 4);
+        batch.end();
+    }
+
+    /**
+     * Rebuilds the text from the profiler.
+     */
+    private void refresh() {
+        text.setLength(0);
+        text.append("phase      p50 ms   p99 ms\n");
+        for (FrameProfiler.Phase phase : FrameProfiler.getPhases()) {
+            line(phase.name(), profiler.getPercentile(phase, 50), profiler.getPercentile(phase, 99));
+        }
+        line("FRAME", profiler.getFramePercentile(50), profiler.getFramePercentile(99));
+        text.append("render calls ").append(profiler.getLastRenderCalls()).append(" (mean ");
+        tenths(profiler.getMeanRenderCalls());
+        text.append(")\ntexture binds ").append(profiler.getLastTextureBindings()).append(" (mean ");
+        tenths(profiler.getMeanTextureBindings());
+        text.append(')');
+    }
+
+    /**
+     * Adds the line of a phase to the text.
+     * @param name The name of the phase.
+     * @param p50 The median time, in nanoseconds.
+     * @param p99 The 99th percentile time, in nanoseconds.
+     */
+    private void line(String name, long p50, long p99) {
+        text.append(name);
+        for (int i = name.length(); i < 10; i++) {
+            text.append(' ');
+        }
+        millis(p50);
+        text.append("   ");
+        millis(p99);
+        text.append('\n');
+    }
+
+    /**
+     * Adds a time in milliseconds with two decimals to the text.
+     * @param nanos The time, in nanoseconds.
+     */
+    private void millis(long nanos) {
+        final long hundredths = nanos / 10000;
+        text.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) {
+            text.append('0');
+        }
+        text.append(hundredths % 100);
+    }
+
+    /**
+     * Adds a number with one decimal to the text.
+     * @param value The number, not negative.
+     */
+    private void tenths(float value) {
+        final int tenths = Math.round(value * 10);
+        text.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    @Override
+    public void dispose() {
+        font.dispose();
+    }
+}
@@ -1,24 +1,46 @@
 package com.mariobros.screens;
 
+import com.badlogic.ashley.core.PooledEngine;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.mariobros.SuperMarioBros;
+import com.mariobros.interfaces.InputSource;
 import com.mariobros.interfaces.Updateable;
 import com.mariobros.scenes.HUD;
+import com.mariobros.scenes.ProfilerOverlay;
+import com.mariobros.sprites.enemies.Goomba;
 import com.mariobros.sprites.hero.Mario;
+import com.mariobros.systems.ActivationSystem;
+import com.mariobros.systems.AnimationSystem;
+import com.mariobros.systems.EnemySystem;
+import com.mariobros.systems.PhysicsSyncSystem;
+import com.mariobros.systems.RenderSystem;
+import com.mariobros.tools.AnimationSet;
+import com.mariobros.tools.AnimationSets;
+import com.mariobros.tools.BodyPool;
 import com.mariobros.tools.Box2DWorldCreator;
+import com.mariobros.tools.CachedTiledMapRenderer;
+import com.mariobros.tools.CollisionRouter;
+import com.mariobros.tools.FrameProfiler;
+import com.mariobros.tools.KeyboardInput;
+import com.mariobros.tools.LevelGeometry;
+import com.mariobros.tools.LevelReloader;
+import com.mariobros.tools.PackedAtlas;
+import com.mariobros.tools.PerformanceProfile;
+import com.mariobros.tools.StatisticsPool;
+import com.mariobros.tools.TileRegistry;
 import com.mariobros.tools.WorldCollisionListener;
 
 /**
@@ -33,15 +55,57 @@ import com.mariobros.tools.WorldCollisionListener;
 public class LevelScreen implements Screen, Updateable {
 
     /**
-     * General debug boolean.
+     * true if bodies should only be created for map objects near the camera.
      */
-    public static final boolean debug = true;
+    public static final boolean streamBodies = true;
+
+    /**
+     * The start of the name of the CSV files the profiled frames are written to.
+     */
+    public static final String PROFILE_PREFIX = "frames-";
+
+    /**
+     * The tag used for logging.
+     */
+    private static final String TAG = "LevelScreen";
+
+    /**
+     * The default number of physics steps per second.
+     */
+    public static final int DEFAULT_STEP_RATE = 60;
+
+    /**
+     * The maximal number of physics steps done in a single frame. Time beyond this is dropped
+     * so a slow frame can not cause even slower frames.
+     */
+    public static final int MAX_STEPS_PER_FRAME = 5;
+
+    /**
+     * Half the width of the view, in world units.
+     */
+    public static final float VIEW_HALF_WIDTH = SuperMarioBros.V_WIDTH / 2 / SuperMarioBros.PPM;
+
+    /**
+     * The distance beyond the edges of the view in which enemies are activated, in world units.
+     */
+    public static final float ACTIVATION_MARGIN = SuperMarioBros.V_WIDTH / 4 / SuperMarioBros.PPM;
+
+    /**
+     * The distance behind the view after which enemies are put back to sleep, in world units.
+     */
+    public static final float DEACTIVATION_MARGIN = SuperMarioBros.V_WIDTH / SuperMarioBros.PPM;
+
 
     /**
      * The game that is being played.
      */
     private SuperMarioBros game;
 
+    /**
+     * The id of the level, such as "1-1".
+     */
+    private final String level;
+
     /**
      * The viewport for the game.
      */
@@ -53,19 +117,19 @@ public class LevelScreen implements Screen, Updateable {
     private OrthographicCamera gamecam;
 
     /**
-     * The loader for the map.
+     * The map used in the level. It belongs to the asset manager of the game.
      */
-    private TmxMapLoader maploader;
+    private TiledMap map;
 
     /**
-     * The map used in the level.
+     * The tiles that replace map tiles while playing.
      */
-    private TiledMap map;
+    private TileRegistry tiles;
 
     /**
      * The renderer of the map.
      */
-    private OrthogonalTiledMapRenderer renderer;
+    private CachedTiledMapRenderer renderer;
 
     /**
      * The world that is being played in.
@@ -87,36 +151,167 @@ public class LevelScreen implements Screen, Updateable {
      */
     private Box2DWorldCreator creator;
 
+    /**
+     * Applies the changes of the level file while playing, or null if the level is not
+     * reloaded.
+     */
+    private LevelReloader reloader;
+
+    /**
+     * The engine that holds the entities of the level. Its entities and components are pooled.
+     */
+    private PooledEngine engine;
+
+    /**
+     * The static bodies of the objects that are streamed in and out.
+     */
+    private BodyPool bodyPool;
+
+    /**
+     * The goombas that are not in the level.
+     */
+    private StatisticsPool<Goomba> goombas;
+
+    /**
+     * Moves the sprites of the entities to their bodies.
+     */
+    private PhysicsSyncSystem physicsSync;
+
+    /**
+     * Draws the sprites of the entities.
+     */
+    private RenderSystem renderSystem;
+
+    /**
+     * Activates the enemies near the view. It runs every physics step.
+     */
+    private ActivationSystem activation;
+
+    /**
+     * Runs the behaviour of the enemies. It runs every physics step.
+     */
+    private EnemySystem enemies;
+
+    /**
+     * The source of the buttons of every physics step.
+     */
+    private InputSource input;
+
+    /**
+     * Measures the phases of every frame.
+     */
+    private FrameProfiler profiler;
+
+    /**
+     * Shows the measurements of the profiler.
+     */
+    private ProfilerOverlay profilerOverlay;
+
+    /**
+     * Routes the contacts of the world.
+     */
+    private WorldCollisionListener collisions;
+
     /**
      * The player.
      */
     private Mario player;
 
     /**
-     * The texture atlas storing the mario sprites.
+     * The number of physics steps per second.
+     */
+    private int stepRate;
+
+    /**
+     * The number of velocity iterations per physics step.
+     */
+    private int velocityIterations;
+
+    /**
+     * The number of position iterations per physics step.
+     */
+    private int positionIterations;
+
+    /**
+     * true if the Box2D debug lines are drawn.
      */
-    private TextureAtlas atlas;
+    private boolean debugRendering;
+
+    /**
+     * The time simulated by a single physics step.
+     */
+    private float stepTime;
+
+    /**
+     * The frame time that has not been simulated yet.
+     */
+    private float accumulator;
+
+    /**
+     * true once mario touched the goal.
+     */
+    private boolean goalReached;
 
     /**
      * Creates a new levelscreen.
      * @param game The game that is currently being played.
+     * @param level The id of the level, such as "1-1".
+     * @param map The map of the level, it belongs to the asset manager of the game.
+     * @param geometry The static geometry of the map if it was baked before, or null.
      */
-    public LevelScreen(SuperMarioBros game) {
+    public LevelScreen(SuperMarioBros game, String level, TiledMap map, LevelGeometry geometry) {
         this.game = game;
-        atlas = game.manager.get("mario-sheet-32x32.txt");
+        this.level = level;
+        this.map = map;
         gamecam = new OrthographicCamera();
         gamePort = new FitViewport(SuperMarioBros.V_WIDTH / SuperMarioBros.PPM, SuperMarioBros.V_HEIGHT / SuperMarioBros.PPM, gamecam);
-        hud = new HUD(game.batch, "1-1", 300);
-        maploader = new TmxMapLoader();
-        map = maploader.load("worlds/world1-1.tmx");
-        //map = maploader.load("Graphics-tests.tmx");
-        renderer = new OrthogonalTiledMapRenderer(map, 1 / SuperMarioBros.PPM, game.batch);
+        hud = new HUD(game.batch, level, 300);
+        profiler = new FrameProfiler(game.batch);
+        profilerOverlay = new ProfilerOverlay(profiler, game.batch);
+        setPerformanceProfile(game.getPerformanceProfile());
+        tiles = new TileRegistry(game.manager, map);
+        renderer = new CachedTiledMapRenderer(map, 1 / SuperMarioBros.PPM,
+                SuperMarioBros.V_WIDTH / (int) tiles.getBlockLayer().getTileWidth());
         gamecam.position.set(gamePort.getWorldWidth() / 2, gamePort.getWorldHeight() / 2, 0);
         world = new World(new Vector2(0, -10), true);
         debugRenderer = new Box2DDebugRenderer();
-        creator = new Box2DWorldCreator(this);
+        bodyPool = new BodyPool(world);
+        goombas = new StatisticsPool<Goomba>("Goombas") {
+            @Override
+            protected Goomba newObject() {
+                return new Goomba(LevelScreen.this);
+            }
+        };
+        createEngine();
+        creator = new Box2DWorldCreator(this, streamBodies, geometry);
+        gamecam.update();
+        creator.stream(gamecam.position.x, VIEW_HALF_WIDTH);
+        input = new KeyboardInput();
         player = new Mario(this, 40.0f / SuperMarioBros.PPM, 40.0f / SuperMarioBros.PPM);
-        world.setContactListener(new WorldCollisionListener());
+        collisions = new WorldCollisionListener();
+        world.setContactListener(collisions);
+        setStepRate(DEFAULT_STEP_RATE);
+    }
+
+    /**
+     * Creates the engine and its systems. Activation and enemy behaviour change the world, so
+     * they run every physics step. Physics sync and animation run every frame, drawing is done
+     * separately.
+     */
+    private void createEngine() {
+        engine = new PooledEngine();
+        activation = new ActivationSystem(ACTIVATION_MARGIN, 0);
+        activation.setDeactivationMargin(DEACTIVATION_MARGIN);
+        activation.setProcessing(false);
+        enemies = new EnemySystem(game.getJobSystem(), 1);
+        enemies.setProcessing(false);
+        physicsSync = new PhysicsSyncSystem(2);
+        renderSystem = new RenderSystem(game.batch, gamecam);
+        engine.addSystem(activation);
+        engine.addSystem(enemies);
+        engine.addSystem(physicsSync);
+        engine.addSystem(new AnimationSystem(3));
+        engine.addSystem(renderSystem);
     }
 
     @Override
@@ -126,16 +321,30 @@ public class LevelScreen implements Screen, Updateable {
 
     @Override
     public void render(float delta) {
+        profiler.beginFrame();
         update(delta);
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         renderer.render();
-        if (debug) {
+        profiler.addRenderCalls(renderer.getRenderCalls());
+        profiler.mark(FrameProfiler.Phase.MAP);
+        if (debugRendering) {
             debugRenderer.render(world, gamecam.combined);
         }
+        profiler.mark(FrameProfiler.Phase.DEBUG);
+        renderSystem.draw();
         drawMario();
-        game.batch.setProjectionMatrix(hud.stage.getCamera().combined);
-        hud.stage.draw();
+        profiler.mark(FrameProfiler.Phase.SPRITES);
+        hud.draw();
+        profiler.mark(FrameProfiler.Phase.HUD);
+        game.getLevels().update();
+        profiler.mark(FrameProfiler.Phase.LOADING);
+        profiler.endFrame();
+        profilerOverlay.draw();
+        game.firstFrameRendered();
+        if (goalReached) {
+            game.finishLevel();
+        }
     }
 
     /**
@@ -151,6 +360,8 @@ public class LevelScreen implements Screen, Updateable {
     @Override
     public void resize(int width, int height) {
         gamePort.update(width, height);
+        hud.resize(width, height);
+        profilerOverlay.resize(width, height);
     }
 
     @Override
@@ -160,7 +371,7 @@ public class LevelScreen implements Screen, Updateable {
 
     @Override
     public void resume() {
-
+        hud.invalidate();
     }
 
     @Override
@@ -170,39 +381,252 @@ public class LevelScreen implements Screen, Updateable {
 
     @Override
     public void dispose() {
+        creator.restoreTiles();
         renderer.dispose();
-        map.dispose();
         hud.dispose();
+        profilerOverlay.dispose();
+        profiler.setEnabled(false);
+        bodyPool.dispose();
         world.dispose();
         debugRenderer.dispose();
     }
 
     /**
-     * Handles input.
+     * Polls the input that has to be seen once per frame. Presses are remembered by the input
+     * source until the next physics step, so they are not lost in frames without a step.
+     * F3 shows the profiler overlay, F4 writes the profiled frames to a CSV file and F5 switches
+     * to the next performance profile, except while the input is recorded, since the profile
+     * changes the physics.
+     * @param dt The delta time.
+     */
+    public void pollInput(float dt) {
+        input.poll();
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            profilerOverlay.toggle();
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F4)) {
+            FileHandle file = Gdx.files.local(PROFILE_PREFIX + TimeUtils.millis() + ".csv");
+            profiler.writeCsv(file);
+            Gdx.app.log(TAG, "Wrote " + profiler.getFrameCount() + " frames to " + file);
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F5)) {
+            if (game.isRecording()) {
+                Gdx.app.log(TAG, "The performance profile can not be switched while recording");
+            } else {
+                game.setPerformanceProfile(game.getPerformanceProfile().next());
+                Gdx.app.log(TAG, "Performance profile " + game.getPerformanceProfile());
+            }
+        }
+    }
+
+    /**
+     * Handles input. This is done once per physics step, with the buttons of the input source.
      * @param dt The delta time.
      */
     public void handleInput(float dt) {
-        if (Gdx.input.isKeyJustPressed(Input.Keys.UP)) {
+        final int buttons = input.nextStep();
+        if ((buttons & InputSource.UP) != 0) {
             player.jump();
-        } else if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) {
+        } else if ((buttons & InputSource.DOWN) != 0) {
             gamecam.position.y -= 100 * dt;
         }
-        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT) && player.canSpeedUpRight()) {
-            player.getBody().applyLinearImpulse(new Vector2(Mario.SPEED_UP_X, 0.0f), player.getBody().getWorldCenter(), true);
-        } else if (Gdx.input.isKeyPressed(Input.Keys.LEFT) && player.canSpeedUpLeft()) {
-            player.getBody().applyLinearImpulse(new Vector2(-Mario.SPEED_UP_X, 0.0f), player.getBody().getWorldCenter(), true);
+        final Vector2 center = player.getBody().getWorldCenter();
+        if ((buttons & InputSource.RIGHT) != 0 && player.canSpeedUpRight()) {
+            player.getBody().applyLinearImpulse(Mario.SPEED_UP_X, 0.0f, center.x, center.y, true);
+        } else if ((buttons & InputSource.LEFT) != 0 && player.canSpeedUpLeft()) {
+            player.getBody().applyLinearImpulse(-Mario.SPEED_UP_X, 0.0f, center.x, center.y, true);
         }
     }
 
     @Override
     public void update(float dt) {
-        handleInput(dt);
-        hud.update(dt);
-        world.step(1 / 60f, 6, 2);
+        pollInput(dt);
+        profiler.mark(FrameProfiler.Phase.INPUT);
+        accumulator += Math.min(dt, MAX_STEPS_PER_FRAME * stepTime);
+        while (accumulator >= stepTime) {
+            step();
+            accumulator -= stepTime;
+        }
+        profiler.mark(FrameProfiler.Phase.PHYSICS);
+        final float alpha = accumulator / stepTime;
+        player.interpolate(alpha);
         player.update(dt);
-        gamecam.position.x = player.getBody().getPosition().x;
+        profiler.mark(FrameProfiler.Phase.PLAYER);
+        gamecam.position.x = player.getX() + player.getWidth() / 2;
         gamecam.update();
         renderer.setView(gamecam);
+        profiler.mark(FrameProfiler.Phase.CAMERA);
+        physicsSync.setAlpha(alpha);
+        engine.update(dt);
+        profiler.mark(FrameProfiler.Phase.ENTITIES);
+    }
+
+    /**
+     * Advances the simulation by exactly one physics step. Everything that changes the world is
+     * done here and follows the body of mario instead of the interpolated camera, so the same
+     * buttons always give the same simulation, however the steps are spread over frames.
+     */
+    public void step() {
+        player.savePreviousState();
+        physicsSync.savePreviousStates();
+        handleInput(stepTime);
+        hud.update(stepTime);
+        world.step(stepTime, velocityIterations, positionIterations);
+        player.updateShape();
+        final float x = player.getBody().getPosition().x;
+        creator.stream(x, VIEW_HALF_WIDTH);
+        activation.setView(x, VIEW_HALF_WIDTH);
+        activation.update(stepTime);
+        enemies.update(stepTime);
+    }
+
+    /**
+     * Applies the changes of the level file to the level, if the level is reloaded. Mario keeps
+     * his state. It may not be called while the world is stepping.
+     * @param changedAt The time the change of the file was seen, from {@link TimeUtils#nanoTime()}.
+     */
+    public void reloadLevel(long changedAt) {
+        if (reloader != null) {
+            reloader.reload(changedAt);
+        }
+    }
+
+    /**
+     * Makes the level follow the changes of its TMX file, see {@link #reloadLevel(long)}.
+     * @param file The TMX file of the level, or null to stop following it.
+     */
+    public void setReloadFile(FileHandle file) {
+        reloader = file == null ? null : new LevelReloader(this, file);
+    }
+
+    /**
+     * Called when mario touches the goal. The level ends after the frame, this may be called
+     * while the world is stepping.
+     */
+    public void reachGoal() {
+        goalReached = true;
+    }
+
+    /**
+     * Returns the id of the level.
+     * @return The level id, such as "1-1".
+     */
+    public String getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the number of physics steps per second.
+     * @param stepsPerSecond The new step rate.
+     */
+    public void setStepRate(int stepsPerSecond) {
+        if (stepsPerSecond <= 0) {
+            throw new IllegalArgumentException("Step rate must be positive but was " + stepsPerSecond);
+        }
+        stepRate = stepsPerSecond;
+        stepTime = 1.0f / stepsPerSecond;
+        accumulator = 0;
+    }
+
+    /**
+     * Returns the number of physics steps per second.
+     * @return The step rate.
+     */
+    public int getStepRate() {
+        return stepRate;
+    }
+
+    /**
+     * Applies the parts of a performance profile that belong to the level: the solver
+     * iterations, the debug lines and the profiler. The profiler stays on while its overlay is
+     * shown.
+     * @param profile The profile to apply.
+     */
+    public void setPerformanceProfile(PerformanceProfile profile) {
+        velocityIterations = profile.getVelocityIterations();
+        positionIterations = profile.getPositionIterations();
+        debugRendering = profile.isDebugRendering();
+        profiler.setEnabled(profile.isProfiling() || profilerOverlay.isVisible());
+    }
+
+    /**
+     * Returns the number of velocity iterations per physics step.
+     * @return The velocity iterations.
+     */
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    /**
+     * Returns the number of position iterations per physics step.
+     * @return The position iterations.
+     */
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    /**
+     * Returns the time simulated by a single physics step.
+     * @return The step time in seconds.
+     */
+    public float getStepTime() {
+        return stepTime;
+    }
+
+    /**
+     * Returns the engine that holds the entities of the level.
+     * @return The engine.
+     */
+    public PooledEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns the pool of the static bodies of the objects that are streamed in and out.
+     * @return The body pool.
+     */
+    public BodyPool getBodyPool() {
+        return bodyPool;
+    }
+
+    /**
+     * Returns the pool of the goombas that are not in the level.
+     * @return The goomba pool.
+     */
+    public StatisticsPool<Goomba> getGoombaPool() {
+        return goombas;
+    }
+
+    /**
+     * Sets the source of the buttons of every physics step.
+     * @param input The new input source.
+     */
+    public void setInputSource(InputSource input) {
+        this.input = input;
+    }
+
+    /**
+     * Returns the source of the buttons of every physics step.
+     * @return The input source.
+     */
+    public InputSource getInputSource() {
+        return input;
+    }
+
+    /**
+     * Returns the profiler that measures the phases of every frame.
+     * @return The frame profiler.
+     */
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Returns the system that activates the enemies near the view.
+     * @return The activation system, which counts the active enemies.
+     */
+    public ActivationSystem getActivation() {
+        return activation;
     }
 
     /**
@@ -213,6 +637,30 @@ public class LevelScreen implements Screen, Updateable {
         return world;
     }
 
+    /**
+     * Returns the contact listener of the world, which counts the contacts per pair.
+     * @return The collision router of this level.
+     */
+    public CollisionRouter getCollisions() {
+        return collisions;
+    }
+
+    /**
+     * Returns the creator of the bodies of the map objects.
+     * @return The world creator.
+     */
+    public Box2DWorldCreator getWorldCreator() {
+        return creator;
+    }
+
+    /**
+     * Returns the renderer of the map. Code that changes a tile must tell it which chunk changed.
+     * @return The map renderer.
+     */
+    public CachedTiledMapRenderer getMapRenderer() {
+        return renderer;
+    }
+
     /**
      * Return the map that is being used.
      * @return the tilemap in usage for this level.
@@ -221,6 +669,14 @@ public class LevelScreen implements Screen, Updateable {
         return map;
     }
 
+    /**
+     * Returns the tiles that replace map tiles while playing.
+     * @return The tile registry of this level.
+     */
+    public TileRegistry getTileRegistry() {
+        return tiles;
+    }
+
     /**
      * Return the Hud.
      * @return the hud.
@@ -230,11 +686,31 @@ public class LevelScreen implements Screen, Updateable {
     }
 
     /**
-     * Returns the atlas.
-     * @return The atlas for the mario sprites.
+     * Returns the player.
+     * @return The mario controlled by the player.
+     */
+    public Mario getPlayer() {
+        return player;
+    }
+
+    /**
+     * Finds a region of a sprite sheet, in the packed atlas if the game uses it. This searches
+     * the atlas, so it should be done while loading.
+     * @param sheet The sheet, for example {@link PackedAtlas#MARIO_SHEET}.
+     * @param name The name of the region in the sheet.
+     * @return The region.
+     */
+    public TextureRegion findRegion(String sheet, String name) {
+        return PackedAtlas.findRegion(game.manager, sheet, name);
+    }
+
+    /**
+     * Finds the animation set of a sprite.
+     * @param name The name of the set in {@link AnimationSets#FILE}.
+     * @return The animation set.
      */
-    public TextureAtlas getAtlas() {
-        return atlas;
+    public AnimationSet findAnimations(String name) {
+        return game.manager.get(AnimationSets.FILE, AnimationSets.class).get(name);
     }
 
     /**
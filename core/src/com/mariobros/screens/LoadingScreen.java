@@ -0,0 +1,116 @@
+package com.mariobros.screens;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+import com.mariobros.SuperMarioBros;
+
+/**
+ * The Screen that is shown while the assets are loading. Every frame the asset manager gets a
+ * slice of time to load, the rest of the frame is used to draw the progress. The level is
+ * started once all assets are loaded.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class LoadingScreen implements Screen {
+
+    /**
+     * The time the asset manager may spend loading each frame, in milliseconds.
+     */
+    public static final int LOAD_SLICE_MILLIS = 12;
+
+    /**
+     * The width of the progress bar, in virtual pixels.
+     */
+    private static final float BAR_WIDTH = SuperMarioBros.V_WIDTH / 2;
+
+    /**
+     * The height of the progress bar, in virtual pixels.
+     */
+    private static final float BAR_HEIGHT = 8;
+
+    /**
+     * The game that is being loaded.
+     */
+    private SuperMarioBros game;
+
+    /**
+     * The viewport for the screen.
+     */
+    private Viewport viewport;
+
+    /**
+     * Draws the progress bar.
+     */
+    private ShapeRenderer shapes;
+
+    /**
+     * Creates a new loading screen. The assets must already be queued in the asset manager of
+     * the game.
+     * @param game The game that is being loaded.
+     */
+    public LoadingScreen(SuperMarioBros game) {
+        this.game = game;
+        viewport = new FitViewport(SuperMarioBros.V_WIDTH, SuperMarioBros.V_HEIGHT, new OrthographicCamera());
+        viewport.apply(true);
+        shapes = new ShapeRenderer();
+    }
+
+    @Override
+    public void show() {
+
+    }
+
+    @Override
+    public void render(float delta) {
+        if (game.manager.update(LOAD_SLICE_MILLIS)) {
+            game.startLevel();
+            return;
+        }
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        final float x = (SuperMarioBros.V_WIDTH - BAR_WIDTH) / 2;
+        final float y = (SuperMarioBros.V_HEIGHT - BAR_HEIGHT) / 2;
+        shapes.setProjectionMatrix(viewport.getCamera().combined);
+        shapes.begin(ShapeRenderer.ShapeType.Line);
+        shapes.setColor(1, 1, 1, 1);
+        shapes.rect(x, y, BAR_WIDTH, BAR_HEIGHT);
+        shapes.end();
+        shapes.begin(ShapeRenderer.ShapeType.Filled);
+        shapes.rect(x, y, BAR_WIDTH * game.manager.getProgress(), BAR_HEIGHT);
+        shapes.end();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height, true);
+    }
+
+    @Override
+    public void pause() {
+
+    }
+
+    @Override
+    public void resume() {
+
+    }
+
+    @Override
+    public void hide() {
+        dispose();
+    }
+
+    @Override
+    public void dispose() {
+        shapes.dispose();
+    }
+}
@@ -1,13 +1,24 @@
 package com.mariobros.sprites.enemies;
 
-import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Pool;
+import com.mariobros.components.BodyComponent;
+import com.mariobros.components.EnemyComponent;
+import com.mariobros.components.InactiveComponent;
 import com.mariobros.interfaces.Updateable;
 import com.mariobros.screens.LevelScreen;
 import com.mariobros.sprites.hero.Mario;
 
 /**
  * Class to overlook all enemies. A typical mario enemy is the goomba or the turtle. This
- * class provides code that all enemies have in common.
+ * class provides code that all enemies have in common. The enemy is the behaviour of an
+ * entity, the entity holds the body, sprite and animation that the systems work on. Enemies
+ * are pooled, an enemy keeps its body when it leaves the level so it can be spawned again
+ * without creating a new one. Each step the enemies first {@link #think(float)}, in parallel,
+ * and then {@link #update(float)} the world one by one.
  *
  * @since 1.0
  * @version 1.0
@@ -15,16 +26,119 @@ import com.mariobros.sprites.hero.Mario;
  * @author stefan boodt
  */
 
-public abstract class Enemy extends Sprite implements Updateable {
+public abstract class Enemy implements Updateable, Pool.Poolable {
 	
 	/**
 	 * Screen to use.
 	 */
 	protected LevelScreen screen;
 
-    public Enemy(LevelScreen screen, float x, float y) {
+    /**
+     * The body of the enemy. This is null until the enemy is defined.
+     */
+    protected Body body;
+
+    /**
+     * The place the enemy enters the level, in world units.
+     */
+    protected final Vector2 spawnPosition;
+
+    /**
+     * The entity of the enemy, or null if the enemy is not in the engine.
+     */
+    private Entity entity;
+
+    public Enemy(LevelScreen screen) {
     	this.screen = screen;
-    	setPosition(x,y);
+    	spawnPosition = new Vector2();
+    }
+
+    /**
+     * Returns the body of the enemy.
+     * @return The body, or null if the enemy has not been defined yet.
+     */
+    public Body getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the entity of the enemy.
+     * @return The entity, or null if the enemy is not in the engine.
+     */
+    public Entity getEntity() {
+        return entity;
+    }
+
+    /**
+     * Adds the enemy to the engine as an entity at the given position. The body is defined the
+     * first time the enemy is spawned and reused after that. The body starts inactive, it is
+     * activated once the camera comes near.
+     * @param engine The engine of the level.
+     * @param x The x coordinate, in world units.
+     * @param y The y coordinate, in world units.
+     */
+    public void spawn(PooledEngine engine, float x, float y) {
+        spawnPosition.set(x, y);
+        if (body == null) {
+            defineEnemy();
+        } else {
+            body.setTransform(spawnPosition, 0);
+        }
+        body.setActive(false);
+        entity = engine.createEntity();
+        BodyComponent bodyComponent = engine.createComponent(BodyComponent.class);
+        bodyComponent.body = body;
+        bodyComponent.previousPosition.set(body.getPosition());
+        entity.add(bodyComponent);
+        EnemyComponent enemyComponent = engine.createComponent(EnemyComponent.class);
+        enemyComponent.enemy = this;
+        entity.add(enemyComponent);
+        addComponents(engine, entity);
+        entity.add(engine.createComponent(InactiveComponent.class));
+        engine.addEntity(entity);
+    }
+
+    /**
+     * Removes the enemy from the engine. The body is made inactive and kept for the next spawn.
+     * @param engine The engine of the level.
+     */
+    public void despawn(PooledEngine engine) {
+        engine.removeEntity(entity);
+        body.setActive(false);
+        entity = null;
+    }
+
+    /**
+     * Stops the body of the enemy, so it is at rest when it is spawned again.
+     */
+    @Override
+    public void reset() {
+        if (body != null) {
+            body.setLinearVelocity(0, 0);
+            body.setAngularVelocity(0);
+        }
+    }
+
+    /**
+     * Decides what the enemy does in this step: its timers, its decisions and the changes of its
+     * state. The enemies think at the same time, each maybe on another thread, so this may only
+     * change the enemy itself and read its own body. What changes the world is done in
+     * {@link #update(float)}. This does nothing by default.
+     * @param dt The time since the last update.
+     */
+    public void think(float dt) {
+
+    }
+
+    /**
+     * Applies what the enemy decided to the world, for example an impulse on its body. This is
+     * called after every enemy has thought, for one enemy at a time in the same order every
+     * step, so the simulation does not depend on the threads. This does nothing by default.
+     * @param dt The time since the last update.
+     */
+    @Override
+    public void update(float dt) {
+
     }
 
     /**
@@ -32,6 +146,13 @@ public abstract class Enemy extends Sprite implements Updateable {
      */
     public abstract void defineEnemy();
 
+    /**
+     * Adds the components that draw the enemy to its entity.
+     * @param engine The engine to obtain the components from.
+     * @param entity The entity of the enemy.
+     */
+    protected abstract void addComponents(PooledEngine engine, Entity entity);
+
     /**
      * Code for what happens if the enemy is stomped.
      * @param mario The mario that stomped this enemy.
@@ -1,19 +1,16 @@
 package com.mariobros.sprites.enemies;
 
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
 import com.badlogic.gdx.graphics.g2d.Animation;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.CircleShape;
-import com.badlogic.gdx.physics.box2d.EdgeShape;
-import com.badlogic.gdx.physics.box2d.FixtureDef;
-import com.badlogic.gdx.physics.box2d.PolygonShape;
-import com.badlogic.gdx.utils.Array;
 import com.mariobros.SuperMarioBros;
+import com.mariobros.components.AnimationComponent;
+import com.mariobros.components.SpriteComponent;
 import com.mariobros.screens.LevelScreen;
 import com.mariobros.sprites.hero.Mario;
+import com.mariobros.tools.AnimationSet;
 
 /**
  * Created by stefanboodt on 17-01-17.
@@ -21,14 +18,30 @@ import com.mariobros.sprites.hero.Mario;
 public class Goomba extends Enemy {
 
     /**
-     * The goombas body.
+     * The size of a goomba, in world units.
      */
-    private Body body;
+    private static final float SIZE = 16 / SuperMarioBros.PPM;
 
     /**
-     * The state timer.
+     * The walking speed of a goomba, in world units per second.
      */
-    private float stateTimer;
+    public static final float SPEED = 0.5f;
+
+    /**
+     * The fraction of its speed below which a walking goomba is blocked, by a wall, a pipe or
+     * another enemy.
+     */
+    private static final float BLOCKED_FRACTION = 0.5f;
+
+    /**
+     * The direction the goomba walks in, -1 for left and 1 for right.
+     */
+    private int direction = -1;
+
+    /**
+     * true once the goomba was set walking, so a goomba that has not moved yet is not blocked.
+     */
+    private boolean moving;
 
     /**
      * The walking animation.
@@ -36,75 +49,86 @@ public class Goomba extends Enemy {
     private Animation<TextureRegion> walking;
 
     /**
-     * Create a new goomba on the given screen with the given (x, y) coordinates.
+     * Create a new goomba on the given screen. It is placed when it is spawned.
      * @param screen The level screen.
-     * @param x The x coordinate.
-     * @param y The y coordinate.
      */
-    public Goomba(LevelScreen screen, float x, float y) {
-        super(screen, x, y);
+    public Goomba(LevelScreen screen) {
+        super(screen);
         loadAnimation();
-        stateTimer = 0.0f;
     }
 
     @Override
     public void defineEnemy() {
         BodyDef bdef = new BodyDef();
-        bdef.position.set(getX(), getY());
+        bdef.position.set(spawnPosition);
         bdef.type = BodyDef.BodyType.DynamicBody;
         this.body = screen.getWorld().createBody(bdef);
-        FixtureDef fdef = new FixtureDef();
-        CircleShape shape = new CircleShape();
-        shape.setRadius(7 / SuperMarioBros.PPM);
-        setFilters(fdef);
-        fdef.shape = shape;
-        this.body.createFixture(fdef).setUserData(this);
-
-        PolygonShape head = new PolygonShape();
-        Vector2[] vertices = new Vector2[4];
-        vertices[0] = new Vector2(-6, 9).scl(1 / SuperMarioBros.PPM);
-        vertices[1] = new Vector2(6, 9).scl(1 / SuperMarioBros.PPM);
-        vertices[2] = new Vector2(3, 3).scl(1 / SuperMarioBros.PPM);
-        vertices[3] = new Vector2(-3, 3).scl(1 / SuperMarioBros.PPM);
-        head.set(vertices);
-        fdef.shape = head;
-        fdef.restitution = 0.5f;
-        fdef.filter.categoryBits = SuperMarioBros.ENEMY_WEAKNESS_BIT;
-        body.createFixture(fdef).setUserData(this);
+        screen.getGame().getShapeProfiles().getGoomba().apply(body, this);
     }
 
     @Override
-    public void onHit(Mario mario) {
-
+    protected void addComponents(PooledEngine engine, Entity entity) {
+        SpriteComponent sprite = engine.createComponent(SpriteComponent.class);
+        sprite.width = SIZE;
+        sprite.height = SIZE;
+        sprite.region = walking.getKeyFrame(0);
+        entity.add(sprite);
+        AnimationComponent animation = engine.createComponent(AnimationComponent.class);
+        animation.animation = walking;
+        entity.add(animation);
     }
 
     /**
-     * Sets the filters for the goomba.
-     * @param fdef The fixturedef to add the bits to.
+     * Turns the goomba around when it was blocked in the last step. A goomba walks towards
+     * mario when it appears and, as in the original game, walks off ledges.
+     * @param dt The time since the last update.
      */
-    private void setFilters(FixtureDef fdef) {
-        fdef.filter.categoryBits = SuperMarioBros.ENEMY_BIT;
-        fdef.filter.maskBits = SuperMarioBros.GROUND_BIT | SuperMarioBros.ENEMY_BIT | SuperMarioBros.MARIO_BIT
-                | SuperMarioBros.OBJECT_BIT | SuperMarioBros.BLOCK_BIT;
+    @Override
+    public void think(float dt) {
+        if (moving && Math.abs(body.getLinearVelocity().x) < SPEED * BLOCKED_FRACTION) {
+            direction = -direction;
+        }
     }
 
+    /**
+     * Keeps the goomba walking at its speed in its direction.
+     * @param dt The time since the last update.
+     */
     @Override
     public void update(float dt) {
-        stateTimer += dt;
-        setPosition(body.getPosition().x - getWidth() / 2, body.getPosition().y - getHeight() / 2);
-        setRegion(walking.getKeyFrame(stateTimer, true));
+        body.setLinearVelocity(direction * SPEED, body.getLinearVelocity().y);
+        moving = true;
+    }
+
+    /**
+     * Stops the goomba and makes it walk left again when it is spawned next.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        direction = -1;
+        moving = false;
+    }
+
+    /**
+     * Returns the direction the goomba walks in.
+     * @return -1 for left, 1 for right.
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    @Override
+    public void onHit(Mario mario) {
+
     }
 
     /**
      * Loads the necessary animations.
      */
     private void loadAnimation() {
-        Array<TextureRegion> frames = new Array<TextureRegion>();
-        TextureAtlas atlas = screen.getGame().manager.get("tileset.txt");
-        TextureRegion region = atlas.findRegion("goomba");
-        for (int i = 0; i < 2; i++) {
-            frames.add(new TextureRegion(region, 16 * i, 0, 16, 16));
-        }
-        walking = new Animation<TextureRegion>(0.4f, frames);
+        AnimationSet animations = screen.findAnimations("goomba");
+        walking = animations.getAnimation(animations.getVariant("NORMAL"), animations.getState("WALKING"),
+                AnimationSet.RIGHT);
     }
 }
@@ -1,24 +1,20 @@
 package com.mariobros.sprites.hero;
 
-import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.CircleShape;
-import com.badlogic.gdx.physics.box2d.EdgeShape;
 import com.badlogic.gdx.physics.box2d.Filter;
 import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
-import com.badlogic.gdx.utils.Array;
 import com.mariobros.SuperMarioBros;
+import com.mariobros.interfaces.Interpolatable;
 import com.mariobros.interfaces.Updateable;
 import com.mariobros.screens.LevelScreen;
 import com.mariobros.sprites.enemies.Enemy;
-
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
+import com.mariobros.tools.AnimationSet;
+import com.mariobros.tools.ShapeProfile;
 
 /**
  * This class represents Mario.
@@ -28,7 +24,7 @@ import sun.reflect.generics.reflectiveObjects.NotImplementedException;
  *
  * @author stefan boodt
  */
-public class Mario extends Sprite implements Updateable {
+public class Mario extends Sprite implements Updateable, Interpolatable {
 
     /**
      * The world mario lives in.
@@ -81,40 +77,54 @@ public class Mario extends Sprite implements Updateable {
     public static final float SPEED_UP_Y = 4.3f;
 
     /**
-     * true if mario is facing right. Used to keep track of the direction.
+     * The filter of the fixtures of a dead mario, so he falls through everything.
      */
-    private boolean facingRight;
+    private static final Filter DEAD_FILTER = new Filter();
+
+    static {
+        DEAD_FILTER.maskBits = SuperMarioBros.NOTHING_BIT;
+    }
 
     /**
-     * The timer on the animations.
+     * The facing of mario, {@link AnimationSet#RIGHT} or {@link AnimationSet#LEFT}.
      */
-    private float stateTimer;
+    private int facing;
 
     /**
-     * The standing frame.
+     * The timer on the animations.
      */
-    private Array<TextureRegion> marioStand;
+    private float stateTimer;
 
     /**
-     * The run animations. The animations should stay in the same order as the PowerUp enum.
+     * The animations of mario.
      */
-    private Array<Animation<TextureRegion>> marioRun;
+    private AnimationSet animations;
 
     /**
-     * The jumping frame.
+     * The animation variant of each powerup, in the order of the PowerUp enum.
      */
-    private Array<TextureRegion> marioJump;
+    private int[] variants;
 
     /**
-     * The region for when mario dies.
+     * The animation state of each state, in the order of the State enum.
      */
-    private TextureRegion marioDead;
+    private int[] states;
 
     /**
      * The body for mario.
      */
     private Body body;
 
+    /**
+     * The position of the body before the last physics step.
+     */
+    private Vector2 previousPosition;
+
+    /**
+     * true if the powerup changed and the fixtures of the body still have to be replaced.
+     */
+    private boolean shapeChanged;
+
     public Mario(final LevelScreen screen) {
         super();
         setScreen(screen);
@@ -134,43 +144,30 @@ public class Mario extends Sprite implements Updateable {
      */
     private void init() {
         powerup = PowerUp.NORMAL;
-        facingRight = true;
+        facing = AnimationSet.RIGHT;
         currentState = State.STANDING;
         previousState = State.STANDING;
         stateTimer = 0;
-        load_animations();
+        previousPosition = new Vector2();
+        loadAnimations();
         setBounds(0, 0, 16 / SuperMarioBros.PPM, 16 / SuperMarioBros.PPM);
-        setRegion(getStanding());
+        setRegion(animations.getFrame(variants[powerup.ordinal()], states[currentState.ordinal()], facing, 0));
     }
 
     /**
-     * Loads all the animations and texture regions and puts them into variables.
+     * Looks up the animations of mario and the animation variant and state of every powerup
+     * and state.
      */
-    private void load_animations() {
-        marioStand = new Array<TextureRegion>();
-        marioJump = new Array<TextureRegion>();
-        marioRun = new Array<Animation<TextureRegion>>();
-        load_normal_and_super_animations();
-    }
-
-    private void load_normal_and_super_animations() {
-        TextureRegion region = screen.getAtlas().findRegion("little_mario");
-        marioStand.add(new TextureRegion(region, 32, 0, 16, 16));
-        marioJump.add(new TextureRegion(region, 80, 0, 16, 16));
-        Array<TextureRegion> frames = new Array<TextureRegion>();
-        for (int i = 2; i <= 3; i++) {
-            frames.add(new TextureRegion(region, i * 16, 0, 16, 16));
+    private void loadAnimations() {
+        animations = screen.findAnimations("mario");
+        variants = new int[PowerUp.values().length];
+        for (PowerUp value : PowerUp.values()) {
+            variants[value.ordinal()] = animations.getVariant(value.name());
         }
-        marioRun.add(new Animation(0.1f, frames));
-        marioDead = new TextureRegion(region, 160, 0, 16, 16);
-        frames.clear();
-        region = screen.getAtlas().findRegion("super_mario");
-        marioStand.add(new TextureRegion(region, 64, 0, 32, 32));
-        marioJump.add(new TextureRegion(region, 192, 0, 32, 32));
-        for (int i = 2; i < 5; i++) {
-            frames.add(new TextureRegion(region, i * 32, 0, 32, 32));
+        states = new int[State.values().length];
+        for (State value : State.values()) {
+            states[value.ordinal()] = animations.getState(value.name());
         }
-        marioRun.add(new Animation(0.1f, frames));
     }
 
     /**
@@ -183,12 +180,15 @@ public class Mario extends Sprite implements Updateable {
     }
 
     /**
-     * Changes the current power up to the new power up.
+     * Changes the current power up to the new power up. The fixtures of the body are replaced
+     * after the physics step, by {@link #updateShape()}.
      * @param newPowerUp The new power up.
      */
     protected void setPowerup(PowerUp newPowerUp) {
-        powerup = newPowerUp;
-        redefine();
+        if (powerup != newPowerUp) {
+            powerup = newPowerUp;
+            shapeChanged = true;
+        }
     }
 
     /**
@@ -217,10 +217,22 @@ public class Mario extends Sprite implements Updateable {
 
     @Override
     public void update(float dt) {
-        setPosition(getPosition().x - getWidth() / 2, getPosition().y - getHeight() / 2);
         setRegion(getFrame(dt));
     }
 
+    @Override
+    public void savePreviousState() {
+        previousPosition.set(getPosition());
+    }
+
+    @Override
+    public void interpolate(float alpha) {
+        final Vector2 position = getPosition();
+        final float x = previousPosition.x + (position.x - previousPosition.x) * alpha;
+        final float y = previousPosition.y + (position.y - previousPosition.y) * alpha;
+        setPosition(x - getWidth() / 2, y - getHeight() / 2);
+    }
+
     /**
      * This method states what happens if mario is hit by an enemy.
      * @param enemy The enemy that hit mario.
@@ -252,44 +264,44 @@ public class Mario extends Sprite implements Updateable {
      * @param position The starting position.
      */
     protected void define(Vector2 position) {
-        switch (powerup) {
-            case NORMAL:
-                BodyDef bdef = new BodyDef();
-                bdef.position.set(position);
-                bdef.type = BodyDef.BodyType.DynamicBody;
-                this.body = screen.getWorld().createBody(bdef);
-                FixtureDef fdef = new FixtureDef();
-                CircleShape shape = new CircleShape();
-                shape.setRadius(7 / SuperMarioBros.PPM);
-                setFilters(fdef);
-                fdef.shape = shape;
-                this.body.createFixture(fdef).setUserData(this);
-
-                EdgeShape head = new EdgeShape();
-                head.set(new Vector2(-2 / SuperMarioBros.PPM, 7 / SuperMarioBros.PPM),
-                        new Vector2(2 / SuperMarioBros.PPM, 7 / SuperMarioBros.PPM));
-                fdef.isSensor = true;
-                fdef.shape = head;
-                fdef.filter.categoryBits = SuperMarioBros.MARIO_HEAD_BIT;
-                body.createFixture(fdef).setUserData(this);
-                break;
-        }
+        BodyDef bdef = new BodyDef();
+        bdef.position.set(position);
+        bdef.type = BodyDef.BodyType.DynamicBody;
+        this.body = screen.getWorld().createBody(bdef);
+        getShapeProfile().apply(body, this);
+        previousPosition.set(position);
     }
 
     /**
-     * Redefines marios figure in the boxworld.
+     * Returns the shape profile of marios body for the current powerup.
+     * @return The shared profile.
      */
-    protected void redefine() {
-        Vector2 position = getPosition();
-        screen.getWorld().destroyBody(body);
-        define(position);
+    protected ShapeProfile getShapeProfile() {
+        return screen.getGame().getShapeProfiles().getMario(powerup);
+    }
+
+    /**
+     * Replaces the fixtures of marios body by those of his powerup, if it changed in the last
+     * physics step. The body is kept, so mario keeps his position and speed. The fixtures can not
+     * be changed while the world is stepping, so this is called after every step. The profiles
+     * collide, so a mario that died in the same step gets the filter of a dead mario again.
+     */
+    public void updateShape() {
+        if (shapeChanged) {
+            shapeChanged = false;
+            getShapeProfile().apply(body, this);
+            if (isDead()) {
+                setDeadFilter();
+            }
+        }
     }
 
     /**
      * Makes mario jump.
      */
     public void jump() {
-        body.applyLinearImpulse(new Vector2(0.0f, Mario.SPEED_UP_Y), body.getWorldCenter(), true);
+        final Vector2 center = body.getWorldCenter();
+        body.applyLinearImpulse(0.0f, Mario.SPEED_UP_Y, center.x, center.y, true);
     }
 
     /**
@@ -312,48 +324,39 @@ public class Mario extends Sprite implements Updateable {
      * Makes the player die.
      */
     public void die() {
-        setState(State.DEAD);
-        if (previousState != State.DEAD) {
-            Filter filter = new Filter();
-            filter.maskBits = SuperMarioBros.NOTHING_BIT;
-            for (Fixture fixture: body.getFixtureList()) {
-                fixture.setFilterData(filter);
-            }
-            body.applyLinearImpulse(new Vector2(0, 4f), body.getWorldCenter(), true);
+        if (currentState != State.DEAD) {
+            setState(State.DEAD);
+            setDeadFilter();
+            final Vector2 center = body.getWorldCenter();
+            body.applyLinearImpulse(0, 4f, center.x, center.y, true);
         }
     }
 
     /**
-     * Gets the frame to draw.
+     * Makes all fixtures of mario fall through everything.
+     */
+    private void setDeadFilter() {
+        for (Fixture fixture: body.getFixtureList()) {
+            fixture.setFilterData(DEAD_FILTER);
+        }
+    }
+
+    /**
+     * Gets the frame to draw. The frames are shared and flipped when they are loaded, so the
+     * frame is not changed.
      * @param dt The delta time.
      * @return The frame of mario right now.
      */
     public TextureRegion getFrame(float dt) {
         setState(getState());
-        TextureRegion frame = null;
-        switch (currentState) {
-            case STANDING:
-                frame = getStanding();
-                break;
-            case JUMPING:
-                frame = getJumping();
-                break;
-            case RUNNING:
-                frame = getWalking().getKeyFrame(stateTimer, true);
-                break;
-            case DEAD:
-                frame = marioDead;
-                break;
-        }
-
-        if((body.getLinearVelocity().x < 0 || !facingRight) && !frame.isFlipX()){
-            frame.flip(true, false);
-            facingRight = false;
-        }
-        else if((body.getLinearVelocity().x > 0 || facingRight) && frame.isFlipX()){
-            frame.flip(true, false);
-            facingRight = true;
+        final float velocity = body.getLinearVelocity().x;
+        if (velocity < 0) {
+            facing = AnimationSet.LEFT;
+        } else if (velocity > 0) {
+            facing = AnimationSet.RIGHT;
         }
+        final TextureRegion frame = animations.getFrame(variants[powerup.ordinal()],
+                states[currentState.ordinal()], facing, stateTimer);
         stateTimer += dt;
         previousState = currentState;
         return frame;
@@ -367,61 +370,6 @@ public class Mario extends Sprite implements Updateable {
         return this.body.getPosition();
     }
 
-    /**
-     * Retrurns the standing region.
-     * @return The standing frame.
-     */
-    public TextureRegion getStanding() {
-        TextureRegion standing = null;
-        switch (powerup) {
-            case NORMAL:
-                standing = marioStand.get(0);
-                break;
-            case SUPER:
-                standing = marioStand.get(1);
-                break;
-            default:
-                throw new IllegalArgumentException("Mario powerup is " + powerup);
-        }
-        return standing;
-    }
-
-    /**
-     * Return the walking animation.
-     * @return The walking animation.
-     */
-    public Animation<TextureRegion> getWalking() {
-        Animation<TextureRegion> walking = null;
-        switch (powerup) {
-            case NORMAL:
-                walking = marioRun.get(0);
-                break;
-            case SUPER:
-                walking = marioRun.get(1);
-                break;
-            default:
-                throw new IllegalArgumentException("Mario powerup is " + powerup);
-        }
-        return walking;
-    }
-
-    /**
-     * Returns the jumping texture.
-     * @return The jumping texture.
-     */
-    public TextureRegion getJumping() {
-        TextureRegion jumping = null;
-        switch (powerup) {
-            case NORMAL:
-                jumping = marioJump.get(0);
-                break;
-            case SUPER:
-                jumping = marioJump.get(1);
-                break;
-        }
-        return jumping;
-    }
-
     /**
      * Sets the state to the new state.
      * @param state The state to set to.
@@ -434,36 +382,17 @@ public class Mario extends Sprite implements Updateable {
     }
 
     /**
-     * Sets the filters for mario.
-     * @param fdef The fixturedefinition of mario.
-     */
-    protected void setFilters(FixtureDef fdef) {
-        fdef.filter.categoryBits = SuperMarioBros.MARIO_BIT;
-        fdef.filter.maskBits = SuperMarioBros.GROUND_BIT | SuperMarioBros.OBJECT_BIT | SuperMarioBros.ENEMY_BIT
-                | SuperMarioBros.BLOCK_BIT | SuperMarioBros.ENEMY_WEAKNESS_BIT;
-    }
-
-    /**
-     * Return the entire region for the current powerup.
-     * @return The texture region for the powerup.
+     * Returns the powerup mario currently has.
      */
-    protected TextureRegion getRegion() {
-        String regionname = "";
-        switch (powerup) {
-            case NORMAL:
-                regionname = "little_mario";
-                break;
-            case SUPER:
-                regionname = "super_mario";
-                break;
-        }
-        return screen.getAtlas().findRegion(regionname);
+    public PowerUp getPowerUp() {
+        return powerup;
     }
 
     /**
-     * Returns the powerup mario currently has.
+     * Checks if mario has died.
+     * @return true if mario is dead.
      */
-    public PowerUp getPowerUp() {
-        return powerup;
+    public boolean isDead() {
+        return currentState == State.DEAD;
     }
 }
@@ -23,7 +23,7 @@ public class Brick extends InteractiveTileObject {
     public void onHeadHit(Mario mario) {
         if (mario.getPowerUp() != Mario.PowerUp.NORMAL) {
             setCategoryFilter(SuperMarioBros.NOTHING_BIT);
-            getCell().setTile(null);
+            setTile(screen.getTileRegistry().getBrokenBrick());
         }
     }
 
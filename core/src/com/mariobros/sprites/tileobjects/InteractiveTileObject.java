@@ -3,32 +3,30 @@ package com.mariobros.sprites.tileobjects;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.maps.objects.RectangleMapObject;
 import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Filter;
 import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.physics.box2d.FixtureDef;
-import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
 
 import com.mariobros.SuperMarioBros;
+import com.mariobros.interfaces.Streamable;
 import com.mariobros.screens.LevelScreen;
 import com.mariobros.sprites.hero.Mario;
 
-import java.util.logging.Level;
-
 /**
  * Abstract class modelling interactive tile objects. These objects include different kinds of
- * blocks.
+ * blocks. The object only has a body while it is streamed in, the body comes from the body
+ * pool of the level.
  *
  * @since 1.0
  * @version 1.0
  *
  * @author stefan boodt
  */
-public abstract class InteractiveTileObject {
+public abstract class InteractiveTileObject implements Streamable {
 
     /**
      * The boxworld to work in.
@@ -65,6 +63,26 @@ public abstract class InteractiveTileObject {
      */
     protected Fixture fixture;
 
+    /**
+     * The catagory of the fixture. This is kept so the body can be recreated as it was.
+     */
+    private short categoryBits;
+
+    /**
+     * The cell of this object in the block layer, or null if it has no tile.
+     */
+    private TiledMapTileLayer.Cell cell;
+
+    /**
+     * The tile of the cell when the level started.
+     */
+    private final TiledMapTile originalTile;
+
+    /**
+     * The column of the cell of this object in the block layer.
+     */
+    private final int column;
+
     /**
      * Creates a new tileobject.
      * @param screen The current screen.
@@ -76,27 +94,43 @@ public abstract class InteractiveTileObject {
         bounds = ((RectangleMapObject) object).getRectangle();
         this.world = screen.getWorld();
         map = screen.getMap();
-        initBody();
+        categoryBits = SuperMarioBros.BLOCK_BIT;
+        final TiledMapTileLayer layer = screen.getTileRegistry().getBlockLayer();
+        column = (int) ((bounds.getX() + bounds.getWidth() / 2) / layer.getTileWidth());
+        final int y = (int) ((bounds.getY() + bounds.getHeight() / 2) / layer.getTileHeight());
+        cell = layer.getCell(column, y);
+        originalTile = cell == null ? null : cell.getTile();
     }
 
-    /**
-     * Does some required setup.
-     */
-    private void initBody() {
-        BodyDef bdef = new BodyDef();
-        FixtureDef fdef = new FixtureDef();
-        PolygonShape shape = new PolygonShape();
+    @Override
+    public Rectangle getBounds() {
+        return bounds;
+    }
 
-        bdef.type = BodyDef.BodyType.StaticBody;
-        bdef.position.set((bounds.getX() + bounds.getWidth() / 2) / SuperMarioBros.PPM, (bounds.getY() + bounds.getHeight() / 2) / SuperMarioBros.PPM);
+    @Override
+    public boolean isStreamedIn() {
+        return body != null;
+    }
 
-        body = world.createBody(bdef);
+    @Override
+    public boolean isWithin(float left, float right) {
+        return bounds.getX() <= right && bounds.getX() + bounds.getWidth() >= left;
+    }
 
-        shape.setAsBox(bounds.getWidth() / 2 / SuperMarioBros.PPM, bounds.getHeight() / 2 / SuperMarioBros.PPM);
-        fdef.shape = shape;
-        fdef.filter.categoryBits = SuperMarioBros.BLOCK_BIT;
-        fixture = body.createFixture(fdef);
-        fixture.setUserData(this);
+    @Override
+    public void streamOut() {
+        screen.getBodyPool().free(body);
+        body = null;
+        fixture = null;
+    }
+
+    @Override
+    public void streamIn() {
+        body = screen.getBodyPool().obtain((bounds.getX() + bounds.getWidth() / 2) / SuperMarioBros.PPM,
+                (bounds.getY() + bounds.getHeight() / 2) / SuperMarioBros.PPM,
+                bounds.getWidth() / 2 / SuperMarioBros.PPM, bounds.getHeight() / 2 / SuperMarioBros.PPM,
+                categoryBits, this);
+        fixture = body.getFixtureList().first();
     }
 
     /**
@@ -110,19 +144,41 @@ public abstract class InteractiveTileObject {
      * @param filterBit The catagory to classify this object as.
      */
     public void setCategoryFilter(final short filterBit) {
-        Filter filter = new Filter();
-        filter.categoryBits = filterBit;
-        fixture.setFilterData(filter);
+        categoryBits = filterBit;
+        if (fixture != null) {
+            Filter filter = fixture.getFilterData();
+            filter.categoryBits = filterBit;
+            fixture.setFilterData(filter);
+        }
     }
 
     /**
-     * Returns the Cell this object is in inside the map object.
-     * @return The Cell in the map this object is in.
+     * Returns the Cell this object is in inside the block layer of the map. The tile should be
+     * changed with {@link #setTile(TiledMapTile)}, so the map renderer sees the change.
+     * @return The Cell in the map this object is in, or null if there is no tile there.
      */
     public TiledMapTileLayer.Cell getCell() {
-        final TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get("Blocks");
-        final int x = (int) (body.getPosition().x * SuperMarioBros.PPM / layer.getTileWidth());
-        final int y = (int) (body.getPosition().y * SuperMarioBros.PPM / layer.getTileHeight());
-        return layer.getCell(x, y);
+        return cell;
+    }
+
+    /**
+     * Replaces the tile of this object, if it has one, and has the chunk of the cell baked again.
+     * @param tile The new tile, or null to remove the tile.
+     */
+    protected void setTile(TiledMapTile tile) {
+        if (cell != null) {
+            cell.setTile(tile);
+            screen.getMapRenderer().invalidate(column);
+        }
+    }
+
+    /**
+     * Puts back the tile the cell had when the level started, so the map can be played again.
+     * This is done when the level is left, the map renderer is not told.
+     */
+    public void restoreTile() {
+        if (cell != null) {
+            cell.setTile(originalTile);
+        }
     }
 }
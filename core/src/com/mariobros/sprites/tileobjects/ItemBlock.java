@@ -1,11 +1,6 @@
 package com.mariobros.sprites.tileobjects;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.MapObject;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
-import com.mariobros.SuperMarioBros;
 import com.mariobros.screens.LevelScreen;
 import com.mariobros.sprites.hero.Mario;
 
@@ -25,11 +20,6 @@ public class ItemBlock extends InteractiveTileObject {
 
     @Override
     public void onHeadHit(Mario mario) {
-        TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get("ItemBlocks");
-        final int w = Math.round(layer.getTileWidth());
-        final int h = Math.round(layer.getTileHeight());
-        String name = "used_block_" +  w + "x" + h + ".png";
-        TextureRegion region = new TextureRegion(new Texture(name));
-        getCell().setTile(new StaticTiledMapTile(region));
+        setTile(screen.getTileRegistry().getUsedBlock());
     }
 }
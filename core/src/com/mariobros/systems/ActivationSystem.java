@@ -0,0 +1,162 @@
+package com.mariobros.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.mariobros.components.BodyComponent;
+import com.mariobros.components.EnemyComponent;
+import com.mariobros.components.InactiveComponent;
+
+/**
+ * Keeps the bodies of enemies inactive until they come near the view. Box2D does not simulate
+ * inactive bodies, so the cost of the physics depends on what is on screen instead of on the
+ * length of the level. Enemies can optionally be put back to sleep once they are far behind the
+ * view. The system must be added to a {@link PooledEngine}.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class ActivationSystem extends IteratingSystem {
+
+    private static final ComponentMapper<BodyComponent> bodies = ComponentMapper.getFor(BodyComponent.class);
+
+    private static final ComponentMapper<InactiveComponent> inactives = ComponentMapper.getFor(InactiveComponent.class);
+
+    /**
+     * The enemies that are active.
+     */
+    private static final Family ACTIVE = Family.all(BodyComponent.class, EnemyComponent.class)
+            .exclude(InactiveComponent.class).get();
+
+    /**
+     * The center of the view the enemies are activated around, in world units.
+     */
+    private float viewCenter;
+
+    /**
+     * Half the width of the view, in world units.
+     */
+    private float viewHalfWidth;
+
+    /**
+     * The distance beyond the edges of the view in which enemies are activated, in world units.
+     */
+    private float activationMargin;
+
+    /**
+     * The distance behind the left edge of the view after which enemies are deactivated again,
+     * in world units, or a negative value to keep them active.
+     */
+    private float deactivationMargin;
+
+    /**
+     * The active enemies.
+     */
+    private ImmutableArray<Entity> active;
+
+    /**
+     * Creates a new activation system that never deactivates enemies again.
+     * @param activationMargin The distance beyond the edges of the view in which enemies are
+     * activated, in world units.
+     * @param priority The priority of the system.
+     */
+    public ActivationSystem(float activationMargin, int priority) {
+        super(Family.all(BodyComponent.class, EnemyComponent.class).get(), priority);
+        this.activationMargin = activationMargin;
+        this.deactivationMargin = -1;
+    }
+
+    /**
+     * Sets the view the enemies are activated around.
+     * @param center The center of the view, in world units.
+     * @param halfWidth Half the width of the view, in world units.
+     */
+    public void setView(float center, float halfWidth) {
+        viewCenter = center;
+        viewHalfWidth = halfWidth;
+    }
+
+    /**
+     * Sets the distance beyond the edges of the view in which enemies are activated.
+     * @param activationMargin The margin, in world units.
+     */
+    public void setActivationMargin(float activationMargin) {
+        this.activationMargin = activationMargin;
+    }
+
+    /**
+     * Sets the distance behind the left edge of the view after which enemies are put back to
+     * sleep. This should be larger than the activation margin.
+     * @param deactivationMargin The margin in world units, or a negative value to keep enemies
+     * active once they have been activated.
+     */
+    public void setDeactivationMargin(float deactivationMargin) {
+        this.deactivationMargin = deactivationMargin;
+    }
+
+    @Override
+    public void addedToEngine(Engine engine) {
+        super.addedToEngine(engine);
+        active = engine.getEntitiesFor(ACTIVE);
+    }
+
+    /**
+     * Returns the number of enemies whose bodies are simulated.
+     * @return The number of active enemies.
+     */
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    /**
+     * Returns the number of enemies whose bodies are not simulated.
+     * @return The number of inactive enemies.
+     */
+    public int getInactiveCount() {
+        return getEntities().size() - active.size();
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float deltaTime) {
+        final BodyComponent body = bodies.get(entity);
+        final float x = body.body.getPosition().x;
+        final float left = viewCenter - viewHalfWidth;
+        if (inactives.has(entity)) {
+            final float right = viewCenter + viewHalfWidth;
+            if (x >= left - activationMargin && x <= right + activationMargin) {
+                activate(entity, body);
+            }
+        } else if (deactivationMargin >= 0 && x < left - deactivationMargin) {
+            deactivate(entity);
+        }
+    }
+
+    /**
+     * Stops simulating the body of an enemy.
+     * @param entity The entity of the enemy.
+     */
+    private void deactivate(Entity entity) {
+        bodies.get(entity).body.setActive(false);
+        entity.add(((PooledEngine) getEngine()).createComponent(InactiveComponent.class));
+    }
+
+    /**
+     * Makes the body of an enemy simulated again.
+     * @param entity The entity of the enemy.
+     * @param body The body of the enemy.
+     */
+    private void activate(Entity entity, BodyComponent body) {
+        final Body box2dBody = body.body;
+        box2dBody.setActive(true);
+        body.previousPosition.set(box2dBody.getPosition());
+        entity.remove(InactiveComponent.class);
+    }
+}
@@ -0,0 +1,36 @@
+package com.mariobros.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.mariobros.components.AnimationComponent;
+import com.mariobros.components.InactiveComponent;
+import com.mariobros.components.SpriteComponent;
+
+/**
+ * Advances the animations of entities and shows the current frame on their sprite.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class AnimationSystem extends IteratingSystem {
+
+    private static final ComponentMapper<AnimationComponent> animations = ComponentMapper.getFor(AnimationComponent.class);
+
+    private static final ComponentMapper<SpriteComponent> sprites = ComponentMapper.getFor(SpriteComponent.class);
+
+    public AnimationSystem(int priority) {
+        super(Family.all(AnimationComponent.class, SpriteComponent.class).exclude(InactiveComponent.class).get(), priority);
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float deltaTime) {
+        final AnimationComponent animation = animations.get(entity);
+        animation.stateTime += deltaTime;
+        sprites.get(entity).region = animation.animation.getKeyFrame(animation.stateTime, animation.looping);
+    }
+}
@@ -0,0 +1,83 @@
+package com.mariobros.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.mariobros.components.EnemyComponent;
+import com.mariobros.components.InactiveComponent;
+import com.mariobros.interfaces.JobSystem;
+
+/**
+ * Runs the behaviour of all enemies once per physics step, in two phases. First all enemies
+ * think, spread over the threads of the job system. Then each enemy applies what it decided to
+ * the world, on this thread and in the order of the entities, because the world may only be
+ * changed by one thread and the order of the changes has to be the same every run.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class EnemySystem extends IteratingSystem {
+
+    private static final ComponentMapper<EnemyComponent> enemies = ComponentMapper.getFor(EnemyComponent.class);
+
+    /**
+     * The job system the enemies think on.
+     */
+    private final JobSystem jobs;
+
+    /**
+     * Has a range of the enemies think.
+     */
+    private final ThinkJob thinkJob = new ThinkJob();
+
+    /**
+     * Creates the system.
+     * @param jobs The job system the enemies think on.
+     * @param priority The priority of the system.
+     */
+    public EnemySystem(JobSystem jobs, int priority) {
+        super(Family.all(EnemyComponent.class).exclude(InactiveComponent.class).get(), priority);
+        this.jobs = jobs;
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        thinkJob.entities = getEntities();
+        thinkJob.deltaTime = deltaTime;
+        jobs.run(thinkJob.entities.size(), thinkJob);
+        super.update(deltaTime);
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float deltaTime) {
+        enemies.get(entity).enemy.update(deltaTime);
+    }
+
+    /**
+     * Has the enemies of a range of entities think.
+     */
+    private static class ThinkJob implements JobSystem.Job {
+
+        /**
+         * The entities of the enemies.
+         */
+        private ImmutableArray<Entity> entities;
+
+        /**
+         * The time of the step.
+         */
+        private float deltaTime;
+
+        @Override
+        public void run(int from, int to) {
+            for (int i = from; i < to; i++) {
+                enemies.get(entities.get(i)).enemy.think(deltaTime);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mariobros.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.math.Vector2;
+import com.mariobros.components.BodyComponent;
+import com.mariobros.components.InactiveComponent;
+import com.mariobros.components.SpriteComponent;
+
+/**
+ * Moves the sprites of entities to their bodies. The physics runs at a fixed rate, so the sprite
+ * is placed between the positions of the last two steps, like {@link
+ * com.mariobros.interfaces.Interpolatable} does for the player.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class PhysicsSyncSystem extends IteratingSystem {
+
+    private static final ComponentMapper<BodyComponent> bodies = ComponentMapper.getFor(BodyComponent.class);
+
+    private static final ComponentMapper<SpriteComponent> sprites = ComponentMapper.getFor(SpriteComponent.class);
+
+    /**
+     * How far the renderer is between the previous step (0) and the current step (1).
+     */
+    private float alpha = 1;
+
+    public PhysicsSyncSystem(int priority) {
+        super(Family.all(BodyComponent.class, SpriteComponent.class).exclude(InactiveComponent.class).get(), priority);
+    }
+
+    /**
+     * Remembers the positions of all bodies. This is called right before every physics step.
+     */
+    public void savePreviousStates() {
+        final ImmutableArray<Entity> entities = getEntities();
+        for (int i = 0; i < entities.size(); i++) {
+            final BodyComponent body = bodies.get(entities.get(i));
+            body.previousPosition.set(body.body.getPosition());
+        }
+    }
+
+    /**
+     * Sets how far the renderer is between the last two physics steps.
+     * @param alpha Between the previous step (0) and the current step (1).
+     */
+    public void setAlpha(float alpha) {
+        this.alpha = alpha;
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float deltaTime) {
+        final BodyComponent body = bodies.get(entity);
+        final SpriteComponent sprite = sprites.get(entity);
+        final Vector2 position = body.body.getPosition();
+        final Vector2 previous = body.previousPosition;
+        sprite.x = previous.x + (position.x - previous.x) * alpha - sprite.width / 2;
+        sprite.y = previous.y + (position.y - previous.y) * alpha - sprite.height / 2;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mariobros.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.mariobros.components.InactiveComponent;
+import com.mariobros.components.SpriteComponent;
+
+/**
+ * Draws the sprites of all entities in a single batch. This system does not run when the engine
+ * is updated, the screen calls {@link #draw()} when it draws, so the simulation can run without
+ * drawing.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class RenderSystem extends IteratingSystem {
+
+    private static final ComponentMapper<SpriteComponent> sprites = ComponentMapper.getFor(SpriteComponent.class);
+
+    /**
+     * The batch to draw with.
+     */
+    private final SpriteBatch batch;
+
+    /**
+     * The camera to draw for.
+     */
+    private final OrthographicCamera camera;
+
+    public RenderSystem(SpriteBatch batch, OrthographicCamera camera) {
+        super(Family.all(SpriteComponent.class).exclude(InactiveComponent.class).get());
+        this.batch = batch;
+        this.camera = camera;
+        setProcessing(false);
+    }
+
+    /**
+     * Draws all sprites.
+     */
+    public void draw() {
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        super.update(0);
+        batch.end();
+    }
+
+    @Override
+    protected void processEntity(Entity entity, float deltaTime) {
+        final SpriteComponent sprite = sprites.get(entity);
+        if (sprite.region == null) {
+            return;
+        }
+        if (sprite.flipX) {
+            batch.draw(sprite.region, sprite.x + sprite.width, sprite.y, -sprite.width, sprite.height);
+        } else {
+            batch.draw(sprite.region, sprite.x, sprite.y, sprite.width, sprite.height);
+        }
+    }
+}
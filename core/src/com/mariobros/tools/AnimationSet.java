@@ -0,0 +1,177 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * The animations of a sprite, for every variant, state and facing. A variant is a form of the
+ * sprite, like a powerup of mario. The frames are cut from the sheet and flipped when the set is
+ * loaded, and the animations are kept in one flat array, so finding the frame to draw is a single
+ * lookup that changes nothing.
+ *
+ * <p>A set is described in {@link AnimationSets#FILE} by the sheet its regions are in, the
+ * duration of a frame and its variants. Each variant names a region of the sheet, the size of a
+ * frame in that region and the frames of each state, as indices from the left of the region. A
+ * variant that leaves out a state uses the animation of the first variant for that state.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class AnimationSet {
+
+    /**
+     * The facing of frames as they are in the sheet.
+     */
+    public static final int RIGHT = 0;
+
+    /**
+     * The facing of frames that are flipped horizontally.
+     */
+    public static final int LEFT = 1;
+
+    /**
+     * The number of facings.
+     */
+    private static final int FACINGS = 2;
+
+    /**
+     * The index of each variant, by name.
+     */
+    private final ObjectIntMap<String> variants = new ObjectIntMap<String>();
+
+    /**
+     * The index of each state, by name.
+     */
+    private final ObjectIntMap<String> states = new ObjectIntMap<String>();
+
+    /**
+     * The animations, indexed by variant, then state, then facing.
+     */
+    private final Array<Animation<TextureRegion>> animations;
+
+    /**
+     * Loads a set. The sheet must be loaded.
+     * @param json The description of the set.
+     * @param manager The asset manager the sheet is loaded in.
+     * @throws GdxRuntimeException If the first variant leaves out a state.
+     */
+    public AnimationSet(JsonValue json, AssetManager manager) {
+        final String sheet = json.getString("sheet");
+        final float frameDuration = json.getFloat("frameDuration");
+        final JsonValue variantsJson = json.get("variants");
+        for (JsonValue variant = variantsJson.child; variant != null; variant = variant.next) {
+            variants.put(variant.name, variants.size);
+            for (JsonValue state = variant.get("states").child; state != null; state = state.next) {
+                if (!states.containsKey(state.name)) {
+                    states.put(state.name, states.size);
+                }
+            }
+        }
+        final int size = variants.size * states.size * FACINGS;
+        animations = new Array<Animation<TextureRegion>>(size);
+        animations.setSize(size);
+        for (JsonValue variant = variantsJson.child; variant != null; variant = variant.next) {
+            final TextureRegion region = PackedAtlas.findRegion(manager, sheet, variant.getString("region"));
+            final int width = variant.getInt("width");
+            final int height = variant.getInt("height");
+            for (JsonValue state = variant.get("states").child; state != null; state = state.next) {
+                final int[] indices = state.asIntArray();
+                Array<TextureRegion> right = new Array<TextureRegion>(indices.length);
+                Array<TextureRegion> left = new Array<TextureRegion>(indices.length);
+                for (int index : indices) {
+                    right.add(new TextureRegion(region, index * width, 0, width, height));
+                    TextureRegion flipped = new TextureRegion(region, index * width, 0, width, height);
+                    flipped.flip(true, false);
+                    left.add(flipped);
+                }
+                final int first = index(variants.get(variant.name, 0), states.get(state.name, 0), RIGHT);
+                animations.set(first + RIGHT, new Animation<TextureRegion>(frameDuration, right, Animation.PlayMode.LOOP));
+                animations.set(first + LEFT, new Animation<TextureRegion>(frameDuration, left, Animation.PlayMode.LOOP));
+            }
+        }
+        for (int variant = 1; variant < variants.size; variant++) {
+            for (int state = 0; state < states.size; state++) {
+                for (int facing = 0; facing < FACINGS; facing++) {
+                    if (animations.get(index(variant, state, facing)) == null) {
+                        animations.set(index(variant, state, facing), animations.get(index(0, state, facing)));
+                    }
+                }
+            }
+        }
+        for (ObjectIntMap.Entry<String> state : states) {
+            if (animations.get(index(0, state.value, RIGHT)) == null) {
+                throw new GdxRuntimeException("The first variant has no state " + state.key);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of an animation in the flat array.
+     * @param variant The index of the variant.
+     * @param state The index of the state.
+     * @param facing {@link #RIGHT} or {@link #LEFT}.
+     * @return The index of the animation.
+     */
+    private int index(int variant, int state, int facing) {
+        return (variant * states.size + state) * FACINGS + facing;
+    }
+
+    /**
+     * Returns the index of a variant, to look up frames with.
+     * @param name The name of the variant.
+     * @return The index of the variant.
+     * @throws GdxRuntimeException If the set has no such variant.
+     */
+    public int getVariant(String name) {
+        final int variant = variants.get(name, -1);
+        if (variant < 0) {
+            throw new GdxRuntimeException("No animation variant " + name);
+        }
+        return variant;
+    }
+
+    /**
+     * Returns the index of a state, to look up frames with.
+     * @param name The name of the state.
+     * @return The index of the state.
+     * @throws GdxRuntimeException If the set has no such state.
+     */
+    public int getState(String name) {
+        final int state = states.get(name, -1);
+        if (state < 0) {
+            throw new GdxRuntimeException("No animation state " + name);
+        }
+        return state;
+    }
+
+    /**
+     * Returns an animation. The animation loops.
+     * @param variant The index of the variant.
+     * @param state The index of the state.
+     * @param facing {@link #RIGHT} or {@link #LEFT}.
+     * @return The animation.
+     */
+    public Animation<TextureRegion> getAnimation(int variant, int state, int facing) {
+        return animations.get(index(variant, state, facing));
+    }
+
+    /**
+     * Returns the frame to draw. The frame is shared and may not be changed.
+     * @param variant The index of the variant.
+     * @param state The index of the state.
+     * @param facing {@link #RIGHT} or {@link #LEFT}.
+     * @param stateTime The time the sprite has been in the state, in seconds.
+     * @return The frame.
+     */
+    public TextureRegion getFrame(int variant, int state, int facing, float stateTime) {
+        return animations.get(index(variant, state, facing)).getKeyFrame(stateTime);
+    }
+}
@@ -0,0 +1,54 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The animation sets of all sprites, by name, as described in {@link #FILE}. They are loaded by
+ * the asset manager with an {@link AnimationSetsLoader}, after the sprite sheets.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class AnimationSets {
+
+    /**
+     * The file that describes the animation sets.
+     */
+    public static final String FILE = "animations.json";
+
+    /**
+     * The sets, by name.
+     */
+    private final ObjectMap<String, AnimationSet> sets = new ObjectMap<String, AnimationSet>();
+
+    /**
+     * Loads the sets. The sprite sheets must be loaded.
+     * @param json The root of the description.
+     * @param manager The asset manager the sheets are loaded in.
+     */
+    public AnimationSets(JsonValue json, AssetManager manager) {
+        for (JsonValue set = json.child; set != null; set = set.next) {
+            sets.put(set.name, new AnimationSet(set, manager));
+        }
+    }
+
+    /**
+     * Returns an animation set.
+     * @param name The name of the set, for example "mario".
+     * @return The set.
+     * @throws GdxRuntimeException If there is no such set.
+     */
+    public AnimationSet get(String name) {
+        final AnimationSet set = sets.get(name);
+        if (set == null) {
+            throw new GdxRuntimeException("No animation set " + name + " in " + FILE);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonReader;
+
+/**
+ * Loads the {@link AnimationSets}. The sprite sheets are its dependencies, and the frames are
+ * cut and flipped on the loading thread, as they only refer to the regions of the sheets.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class AnimationSetsLoader extends AsynchronousAssetLoader<AnimationSets, AnimationSetsLoader.Parameters> {
+
+    /**
+     * Parameters for loading animation sets. There are none.
+     */
+    public static class Parameters extends AssetLoaderParameters<AnimationSets> {
+    }
+
+    /**
+     * The sets that were loaded asynchronously.
+     */
+    private AnimationSets sets;
+
+    public AnimationSetsLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameters parameter) {
+        return PackedAtlas.getAtlases();
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+        sets = new AnimationSets(new JsonReader().parse(file), manager);
+    }
+
+    @Override
+    public AnimationSets loadSync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+        AnimationSets loaded = sets;
+        sets = null;
+        return loaded;
+    }
+}
@@ -0,0 +1,505 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/**
+ * Loads levels in the binary level format. The format is compiled from the TMX files at build
+ * time and holds the same map, but as packed arrays that can be read without parsing XML or
+ * inflating tile data. The loaded map looks the same as a map loaded by the TmxMapLoader.
+ *
+ * <p>All numbers are big endian. Strings are an unsigned short length followed by UTF-8
+ * bytes. The file is laid out as:</p>
+ * <pre>
+ * int magic, int version
+ * int width, int height, int tileWidth, int tileHeight
+ * string atlas (relative to the level file, empty if the tiles come from the tileset images)
+ * int tilesetCount, per tileset:
+ *     string name, int firstGid, int tileWidth, int tileHeight, int spacing, int margin,
+ *     string image (relative to the level file)
+ * int layerCount, per layer in drawing order:
+ *     byte type, string name, byte visible, float opacity
+ *     tiles:   byte bytesPerGid (2 or 4), width * height gids, top row first
+ *     objects: int count, count ids, count * 4 floats (x, y, width, height; y up)
+ * </pre>
+ *
+ * <p>When the level names an atlas, the tileset images are not loaded. The tiles of a tileset
+ * are then the regions of the atlas named {@link PackedAtlas#TILES_PREFIX} followed by the name
+ * of the tileset, with the local id of the tile as index.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class BinaryMapLoader extends AsynchronousAssetLoader<TiledMap, BinaryMapLoader.Parameters> {
+
+    /**
+     * The extension of binary level files.
+     */
+    public static final String EXTENSION = ".lvl";
+
+    /**
+     * The magic number at the start of every binary level ("SMBL").
+     */
+    public static final int MAGIC = 0x534D424C;
+
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The type of a layer of tiles.
+     */
+    public static final byte LAYER_TILES = 0;
+
+    /**
+     * The type of a layer of rectangle objects.
+     */
+    public static final byte LAYER_OBJECTS = 1;
+
+    /**
+     * The flag of a gid that is flipped horizontally.
+     */
+    public static final int FLAG_FLIP_HORIZONTALLY = 0x80000000;
+
+    /**
+     * The flag of a gid that is flipped vertically.
+     */
+    public static final int FLAG_FLIP_VERTICALLY = 0x40000000;
+
+    /**
+     * The flag of a gid that is flipped diagonally.
+     */
+    public static final int FLAG_FLIP_DIAGONALLY = 0x20000000;
+
+    /**
+     * The mask of the flip flags of a gid.
+     */
+    public static final int FLAG_MASK = 0xE0000000;
+
+    /**
+     * Parameters for loading binary levels.
+     */
+    public static class Parameters extends AssetLoaderParameters<TiledMap> {
+
+        /**
+         * true if mipmaps should be generated for the tileset textures.
+         */
+        public boolean generateMipMaps = false;
+
+        /**
+         * The minification filter of the tileset textures.
+         */
+        public Texture.TextureFilter textureMinFilter = Texture.TextureFilter.Nearest;
+
+        /**
+         * The magnification filter of the tileset textures.
+         */
+        public Texture.TextureFilter textureMagFilter = Texture.TextureFilter.Nearest;
+    }
+
+    /**
+     * The level that is being loaded by the asset manager.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The map that was loaded asynchronously.
+     */
+    private TiledMap map;
+
+    public BinaryMapLoader() {
+        super(new InternalFileHandleResolver());
+    }
+
+    public BinaryMapLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    /**
+     * Loads the level with the default parameters.
+     * @param fileName The file of the level.
+     * @return The loaded map.
+     */
+    public TiledMap load(String fileName) {
+        return load(fileName, new Parameters());
+    }
+
+    /**
+     * Loads the level and its tileset textures. The textures are owned by the map.
+     * @param fileName The file of the level.
+     * @param parameters The parameters for loading.
+     * @return The loaded map.
+     */
+    public TiledMap load(String fileName, Parameters parameters) {
+        FileHandle file = resolve(fileName);
+        ByteBuffer data = read(file);
+        FileHandle atlasFile = readAtlas(file, data);
+        if (atlasFile != null) {
+            TextureAtlas atlas = new TextureAtlas(atlasFile);
+            TiledMap loaded = readMap(file, data, null, atlas);
+            Array<TextureAtlas> owned = new Array<TextureAtlas>(1);
+            owned.add(atlas);
+            loaded.setOwnedResources(owned);
+            return loaded;
+        }
+        ObjectMap<String, Texture> textures = new ObjectMap<String, Texture>();
+        for (FileHandle image : readImages(file, data)) {
+            Texture texture = new Texture(image, parameters.generateMipMaps);
+            texture.setFilter(parameters.textureMinFilter, parameters.textureMagFilter);
+            textures.put(image.path(), texture);
+        }
+        TiledMap loaded = readMap(file, data, textures, null);
+        loaded.setOwnedResources(textures.values().toArray());
+        return loaded;
+    }
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameters parameter) {
+        buffer = read(file);
+        Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+        FileHandle atlas = readAtlas(file, buffer);
+        if (atlas != null) {
+            dependencies.add(new AssetDescriptor<TextureAtlas>(atlas, TextureAtlas.class));
+            return dependencies;
+        }
+        TextureLoader.TextureParameter textureParameter = new TextureLoader.TextureParameter();
+        if (parameter != null) {
+            textureParameter.genMipMaps = parameter.generateMipMaps;
+            textureParameter.minFilter = parameter.textureMinFilter;
+            textureParameter.magFilter = parameter.textureMagFilter;
+        } else {
+            textureParameter.minFilter = Texture.TextureFilter.Nearest;
+            textureParameter.magFilter = Texture.TextureFilter.Nearest;
+        }
+        for (FileHandle image : readImages(file, buffer)) {
+            dependencies.add(new AssetDescriptor<Texture>(image, Texture.class, textureParameter));
+        }
+        return dependencies;
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+        FileHandle atlas = readAtlas(file, buffer);
+        if (atlas != null) {
+            map = readMap(file, buffer, null, manager.get(atlas.path(), TextureAtlas.class));
+        } else {
+            ObjectMap<String, Texture> textures = new ObjectMap<String, Texture>();
+            for (FileHandle image : readImages(file, buffer)) {
+                textures.put(image.path(), manager.get(image.path(), Texture.class));
+            }
+            map = readMap(file, buffer, textures, null);
+        }
+        buffer = null;
+    }
+
+    @Override
+    public TiledMap loadSync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+        TiledMap loaded = map;
+        map = null;
+        return loaded;
+    }
+
+    /**
+     * Returns the files a level needs besides itself: the atlas its tiles come from, or its
+     * tileset images.
+     * @param file The level file.
+     * @return The files the level refers to.
+     */
+    public static Array<FileHandle> getReferences(FileHandle file) {
+        ByteBuffer data = read(file);
+        FileHandle atlas = readAtlas(file, data);
+        if (atlas != null) {
+            Array<FileHandle> references = new Array<FileHandle>(1);
+            references.add(atlas);
+            return references;
+        }
+        return readImages(file, data);
+    }
+
+    /**
+     * Reads the level file and checks its header.
+     * @param file The level file.
+     * @return The contents of the file, positioned after the header.
+     */
+    private static ByteBuffer read(FileHandle file) {
+        ByteBuffer data = ByteBuffer.wrap(file.readBytes());
+        if (data.getInt() != MAGIC) {
+            throw new GdxRuntimeException(file.path() + " is not a binary level");
+        }
+        final int version = data.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException(file.path() + " has version " + version + " but " + VERSION + " is supported");
+        }
+        return data;
+    }
+
+    /**
+     * Returns the atlas the tiles of the level come from. The buffer is left where it was.
+     * @param file The level file.
+     * @param data The contents of the file, positioned after the header.
+     * @return The atlas, or null if the tiles come from the tileset images.
+     */
+    private static FileHandle readAtlas(FileHandle file, ByteBuffer data) {
+        final int start = data.position();
+        data.position(start + 16);
+        final String atlas = readString(data);
+        data.position(start);
+        return atlas.isEmpty() ? null : relative(file, atlas);
+    }
+
+    /**
+     * Returns the tileset images of the level. The buffer is left where it was.
+     * @param file The level file.
+     * @param data The contents of the file, positioned after the header.
+     * @return The tileset images.
+     */
+    private static Array<FileHandle> readImages(FileHandle file, ByteBuffer data) {
+        final int start = data.position();
+        data.position(start + 16);
+        readString(data);
+        final int tilesets = data.getInt();
+        Array<FileHandle> images = new Array<FileHandle>(tilesets);
+        for (int i = 0; i < tilesets; i++) {
+            readString(data);
+            data.position(data.position() + 20);
+            images.add(relative(file, readString(data)));
+        }
+        data.position(start);
+        return images;
+    }
+
+    /**
+     * Reads the map.
+     * @param file The level file.
+     * @param data The contents of the file, positioned after the header.
+     * @param textures The tileset textures by path, or null if the tiles come from an atlas.
+     * @param atlas The atlas the tiles come from, or null if they come from the tileset images.
+     * @return The map.
+     */
+    private static TiledMap readMap(FileHandle file, ByteBuffer data, ObjectMap<String, Texture> textures,
+                                    TextureAtlas atlas) {
+        TiledMap result = new TiledMap();
+        final int width = data.getInt();
+        final int height = data.getInt();
+        final int tileWidth = data.getInt();
+        final int tileHeight = data.getInt();
+        result.getProperties().put("width", width);
+        result.getProperties().put("height", height);
+        result.getProperties().put("tilewidth", tileWidth);
+        result.getProperties().put("tileheight", tileHeight);
+        readString(data);
+
+        final int tilesets = data.getInt();
+        for (int i = 0; i < tilesets; i++) {
+            result.getTileSets().addTileSet(readTileset(file, data, textures, atlas));
+        }
+
+        final int layers = data.getInt();
+        for (int i = 0; i < layers; i++) {
+            final byte type = data.get();
+            final String name = readString(data);
+            final boolean visible = data.get() != 0;
+            final float opacity = data.getFloat();
+            MapLayer layer;
+            if (type == LAYER_TILES) {
+                layer = readTiles(data, result.getTileSets(), width, height, tileWidth, tileHeight);
+            } else if (type == LAYER_OBJECTS) {
+                layer = readObjects(data);
+            } else {
+                throw new GdxRuntimeException("Unknown layer type " + type + " in " + file.path());
+            }
+            layer.setName(name);
+            layer.setVisible(visible);
+            layer.setOpacity(opacity);
+            result.getLayers().add(layer);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a tileset and cuts its texture into tiles, or takes its tiles from the atlas.
+     * @param file The level file.
+     * @param data The contents of the file, positioned at the tileset.
+     * @param textures The tileset textures by path, or null if the tiles come from an atlas.
+     * @param atlas The atlas the tiles come from, or null if they come from the tileset images.
+     * @return The tileset.
+     */
+    private static TiledMapTileSet readTileset(FileHandle file, ByteBuffer data, ObjectMap<String, Texture> textures,
+                                               TextureAtlas atlas) {
+        TiledMapTileSet tileset = new TiledMapTileSet();
+        tileset.setName(readString(data));
+        final int firstGid = data.getInt();
+        final int tileWidth = data.getInt();
+        final int tileHeight = data.getInt();
+        final int spacing = data.getInt();
+        final int margin = data.getInt();
+        final String image = readString(data);
+        tileset.getProperties().put("firstgid", firstGid);
+        if (atlas != null) {
+            final String regions = PackedAtlas.TILES_PREFIX + tileset.getName();
+            for (TextureAtlas.AtlasRegion region : atlas.getRegions()) {
+                if (region.name.equals(regions)) {
+                    StaticTiledMapTile tile = new StaticTiledMapTile(region);
+                    tile.setId(firstGid + region.index);
+                    tileset.putTile(firstGid + region.index, tile);
+                }
+            }
+            return tileset;
+        }
+        final Texture texture = textures.get(relative(file, image).path());
+
+        final int stopWidth = texture.getWidth() - tileWidth;
+        final int stopHeight = texture.getHeight() - tileHeight;
+        int id = firstGid;
+        for (int y = margin; y <= stopHeight; y += tileHeight + spacing) {
+            for (int x = margin; x <= stopWidth; x += tileWidth + spacing) {
+                StaticTiledMapTile tile = new StaticTiledMapTile(new TextureRegion(texture, x, y, tileWidth, tileHeight));
+                tile.setId(id);
+                tileset.putTile(id++, tile);
+            }
+        }
+        return tileset;
+    }
+
+    /**
+     * Reads a layer of tiles.
+     * @param data The contents of the file, positioned at the tiles.
+     * @param tilesets The tilesets of the map.
+     * @param width The width of the map in tiles.
+     * @param height The height of the map in tiles.
+     * @param tileWidth The width of a tile.
+     * @param tileHeight The height of a tile.
+     * @return The layer.
+     */
+    private static TiledMapTileLayer readTiles(ByteBuffer data, TiledMapTileSets tilesets, int width, int height,
+                                               int tileWidth, int tileHeight) {
+        TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+        final boolean wide = data.get() == 4;
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = 0; x < width; x++) {
+                final int gid = wide ? data.getInt() : data.getShort() & 0xFFFF;
+                if (gid != 0) {
+                    StaticTiledMapTile tile = (StaticTiledMapTile) tilesets.getTile(gid & ~FLAG_MASK);
+                    if (tile != null) {
+                        TiledMapTileLayer.Cell cell = createCell(gid);
+                        cell.setTile(tile);
+                        layer.setCell(x, y, cell);
+                    }
+                }
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Creates a cell that is flipped and rotated the way the flags of the gid say.
+     * @param gid The gid with its flags.
+     * @return The cell.
+     */
+    static TiledMapTileLayer.Cell createCell(int gid) {
+        final boolean horizontally = (gid & FLAG_FLIP_HORIZONTALLY) != 0;
+        final boolean vertically = (gid & FLAG_FLIP_VERTICALLY) != 0;
+        TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+        if ((gid & FLAG_FLIP_DIAGONALLY) != 0) {
+            if (horizontally && vertically) {
+                cell.setFlipHorizontally(true);
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            } else if (horizontally) {
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            } else if (vertically) {
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_90);
+            } else {
+                cell.setFlipVertically(true);
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            }
+        } else {
+            cell.setFlipHorizontally(horizontally);
+            cell.setFlipVertically(vertically);
+        }
+        return cell;
+    }
+
+    /**
+     * Reads a layer of rectangles.
+     * @param data The contents of the file, positioned at the objects.
+     * @return The layer.
+     */
+    private static MapLayer readObjects(ByteBuffer data) {
+        MapLayer layer = new MapLayer();
+        final int count = data.getInt();
+        final int[] ids = new int[count];
+        final float[] rectangles = new float[count * 4];
+        data.asIntBuffer().get(ids);
+        data.position(data.position() + count * 4);
+        data.asFloatBuffer().get(rectangles);
+        data.position(data.position() + count * 16);
+        MapObjects objects = layer.getObjects();
+        for (int i = 0; i < count; i++) {
+            RectangleMapObject object = new RectangleMapObject(rectangles[i * 4], rectangles[i * 4 + 1],
+                    rectangles[i * 4 + 2], rectangles[i * 4 + 3]);
+            object.getProperties().put("id", ids[i]);
+            objects.add(object);
+        }
+        return layer;
+    }
+
+    /**
+     * Reads a string.
+     * @param data The buffer to read from.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer data) {
+        final byte[] bytes = new byte[data.getShort() & 0xFFFF];
+        data.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+
+    /**
+     * Resolves a path relative to the directory of the level file.
+     * @param file The level file.
+     * @param path The relative path, with / as separator.
+     * @return The file the path points to.
+     */
+    private static FileHandle relative(FileHandle file, String path) {
+        FileHandle result = file.parent();
+        for (String part : path.split("/")) {
+            if (part.equals("..")) {
+                result = result.parent();
+            } else if (!part.isEmpty() && !part.equals(".")) {
+                result = result.child(part);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Filter;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * A pool of static bodies with a single box fixture, used for objects that are streamed in and
+ * out of the world. A free body stays in the world but is inactive, so Box2D neither simulates
+ * it nor keeps it in the broadphase. Obtaining a body resizes its box, moves it and activates
+ * it again, so streaming does not create or destroy bodies on the native heap.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class BodyPool extends StatisticsPool<Body> implements Disposable {
+
+    /**
+     * The world the bodies are in.
+     */
+    private final World world;
+
+    /**
+     * The definition of new bodies.
+     */
+    private final BodyDef bdef;
+
+    /**
+     * The definition of the fixtures of new bodies.
+     */
+    private final FixtureDef fdef;
+
+    /**
+     * The shape new fixtures are created with, it is resized when a body is obtained.
+     */
+    private final PolygonShape shape;
+
+    /**
+     * Creates a new pool of static bodies.
+     * @param world The world the bodies are in.
+     */
+    public BodyPool(World world) {
+        super("Bodies");
+        this.world = world;
+        bdef = new BodyDef();
+        bdef.type = BodyDef.BodyType.StaticBody;
+        bdef.active = false;
+        fdef = new FixtureDef();
+        shape = new PolygonShape();
+        shape.setAsBox(1, 1);
+        fdef.shape = shape;
+    }
+
+    @Override
+    protected Body newObject() {
+        Body body = world.createBody(bdef);
+        body.createFixture(fdef);
+        return body;
+    }
+
+    /**
+     * Obtains an active body with a box fixture.
+     * @param x The x coordinate of the center of the box, in world units.
+     * @param y The y coordinate of the center of the box, in world units.
+     * @param halfWidth Half the width of the box, in world units.
+     * @param halfHeight Half the height of the box, in world units.
+     * @param category The catagory of the fixture.
+     * @param userData The user data of the fixture.
+     * @return The body, its fixture is the first of its fixture list.
+     */
+    public Body obtain(float x, float y, float halfWidth, float halfHeight, short category, Object userData) {
+        return obtain(x, y, halfWidth, halfHeight, category, userData, false);
+    }
+
+    /**
+     * Obtains an active body with a box fixture, which may be a sensor.
+     * @param x The x coordinate of the center of the box, in world units.
+     * @param y The y coordinate of the center of the box, in world units.
+     * @param halfWidth Half the width of the box, in world units.
+     * @param halfHeight Half the height of the box, in world units.
+     * @param category The catagory of the fixture.
+     * @param userData The user data of the fixture.
+     * @param sensor true if the fixture only detects contacts and does not collide.
+     * @return The body, its fixture is the first of its fixture list.
+     */
+    public Body obtain(float x, float y, float halfWidth, float halfHeight, short category, Object userData,
+                       boolean sensor) {
+        final Body body = obtain();
+        final Fixture fixture = body.getFixtureList().first();
+        ((PolygonShape) fixture.getShape()).setAsBox(halfWidth, halfHeight);
+        final Filter filter = fixture.getFilterData();
+        filter.categoryBits = category;
+        filter.maskBits = -1;
+        filter.groupIndex = 0;
+        fixture.setFilterData(filter);
+        fixture.setUserData(userData);
+        fixture.setSensor(sensor);
+        body.setTransform(x, y, 0);
+        body.setActive(true);
+        return body;
+    }
+
+    /**
+     * Takes a body out of the world by making it inactive.
+     * @param body The body to reset.
+     */
+    @Override
+    protected void reset(Body body) {
+        body.setActive(false);
+        body.getFixtureList().first().setUserData(null);
+    }
+
+    @Override
+    public void dispose() {
+        shape.dispose();
+    }
+}
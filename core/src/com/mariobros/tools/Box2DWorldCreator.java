@@ -1,23 +1,37 @@
 package com.mariobros.tools;
 
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.maps.Map;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
-import com.badlogic.gdx.physics.box2d.FixtureDef;
-import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
 import com.mariobros.SuperMarioBros;
+import com.mariobros.components.TileObjectComponent;
+import com.mariobros.interfaces.Streamable;
 import com.mariobros.screens.LevelScreen;
 import com.mariobros.sprites.enemies.Goomba;
 import com.mariobros.sprites.tileobjects.Brick;
+import com.mariobros.sprites.tileobjects.InteractiveTileObject;
 import com.mariobros.sprites.tileobjects.ItemBlock;
 
 /**
- * Renders the Box2D world and renders debug lines.
+ * Creates the Box2D bodies for the objects on the map. In streaming mode bodies are only
+ * created for objects near the camera and destroyed again once they are far away, so the
+ * length of the level does not matter for the size of the world. The static geometry of each
+ * catagory is merged by a {@link GeometryBaker} first, so touching rectangles become a single
+ * fixture.
+ *
+ * <p>The objects can be changed while the level is played: interactive objects and enemy spawns
+ * are added and removed by their object id, and the static geometry of a layer is baked again,
+ * keeping the fixtures whose rectangle did not change.</p>
  *
  * @since 1.0
  * @version 1.0
@@ -27,53 +41,518 @@ import com.mariobros.sprites.tileobjects.ItemBlock;
 
 public class Box2DWorldCreator {
 
+    /**
+     * The distance beyond the edges of the view in which objects are created, in map pixels.
+     */
+    public static final float STREAM_IN_MARGIN = SuperMarioBros.V_WIDTH / 2;
+
+    /**
+     * The distance beyond the edges of the view after which objects are destroyed, in map
+     * pixels. This is larger than the stream in margin so objects do not flicker in and out.
+     */
+    public static final float STREAM_OUT_MARGIN = SuperMarioBros.V_WIDTH * 3 / 2;
+
+    /**
+     * The width of a single column of the spatial index, in map pixels.
+     */
+    private static final float INDEX_COLUMN_WIDTH = SuperMarioBros.V_WIDTH / 2;
+
+    /**
+     * The tag used for logging.
+     */
+    private static final String TAG = "Box2DWorldCreator";
+
     private Box2DDebugRenderer debug;
 
+    /**
+     * The screen the bodies are created for.
+     */
+    private LevelScreen screen;
+
+    /**
+     * true if bodies are only created near the camera.
+     */
+    private final boolean streaming;
+
+    /**
+     * All the objects of the map by their position.
+     */
+    private SpatialIndex<Streamable> index;
+
+    /**
+     * The objects that currently have a body.
+     */
+    private Array<Streamable> streamedIn;
+
+    /**
+     * Reused array for querying the index.
+     */
+    private Array<Streamable> candidates;
+
+    /**
+     * The interactive objects and enemy spawns by their object id.
+     */
+    private final IntMap<Streamable> objects = new IntMap<Streamable>();
+
+    /**
+     * The interactive objects.
+     */
+    private final Array<InteractiveTileObject> tileObjects = new Array<InteractiveTileObject>(false, 32);
+
+    /**
+     * The entities of the interactive objects by their object id.
+     */
+    private final IntMap<Entity> entities = new IntMap<Entity>();
+
+    /**
+     * The static geometry, per group of layers that is baked together.
+     */
+    private final Array<StaticLayers> staticLayers = new Array<StaticLayers>();
+
+    /**
+     * The number of static rectangles on the map.
+     */
+    private int staticRectangles;
+
+    /**
+     * The number of static fixtures after baking.
+     */
+    private int staticFixtures;
+
     public Box2DWorldCreator(LevelScreen screen) {
-        World world = screen.getWorld();
+        this(screen, false);
+    }
+
+    /**
+     * Creates a new world creator and builds the bodies. In streaming mode no bodies are built
+     * until {@link #stream(float, float)} is called.
+     * @param screen The screen to create the bodies for.
+     * @param streaming true if bodies should only exist near the camera.
+     */
+    public Box2DWorldCreator(LevelScreen screen, boolean streaming) {
+        this(screen, streaming, null);
+    }
+
+    /**
+     * Creates a new world creator and builds the bodies from static geometry that was baked
+     * before. In streaming mode no bodies are built until {@link #stream(float, float)} is called.
+     * @param screen The screen to create the bodies for.
+     * @param streaming true if bodies should only exist near the camera.
+     * @param geometry The static geometry of the map of the screen, or null to bake it now.
+     */
+    public Box2DWorldCreator(LevelScreen screen, boolean streaming, LevelGeometry geometry) {
+        this.screen = screen;
+        this.streaming = streaming;
+        streamedIn = new Array<Streamable>(false, 64);
+        candidates = new Array<Streamable>(false, 64);
         Map map = screen.getMap();
+        TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get(0);
+        index = new SpatialIndex<Streamable>(layer.getWidth() * layer.getTileWidth(), INDEX_COLUMN_WIDTH);
+
+        if (geometry == null) {
+            geometry = new LevelGeometry(map);
+        }
+        for (int i = 0; i < LevelGeometry.LAYERS.length; i++) {
+            StaticLayers layers = new StaticLayers(LevelGeometry.CATEGORIES[i], LevelGeometry.LAYERS[i]);
+            staticLayers.add(layers);
+            layers.apply(geometry.getBaked(i), geometry.getInputCount(i));
+        }
+        Gdx.app.log(TAG, "Baked " + staticRectangles + " static rectangles into " + staticFixtures + " fixtures");
+        for (String name : new String[] {"Blocks", "ItemBlocks", "Goombas"}) {
+            for(MapObject object : map.getLayers().get(name).getObjects().getByType(RectangleMapObject.class)){
+                addObject(name, object);
+            }
+        }
+    }
+
+    /**
+     * Adds an interactive object or enemy spawn to the level.
+     * @param layer The name of the layer of the object.
+     * @param object The object on the map, its id is used to remove it again.
+     * @return true if the layer holds interactive objects or enemy spawns, false if the object
+     * was not added.
+     */
+    public boolean addObject(String layer, MapObject object) {
+        if (!(object instanceof RectangleMapObject)) {
+            return false;
+        }
+        final int id = object.getProperties().get("id", 0, Integer.class);
+        Streamable added;
+        if ("Blocks".equals(layer)) {
+            added = addTileObject(id, new Brick(screen, object));
+        } else if ("ItemBlocks".equals(layer)) {
+            added = addTileObject(id, new ItemBlock(screen, object));
+        } else if ("Goombas".equals(layer)) {
+            added = new EnemySpawn(((RectangleMapObject) object).getRectangle());
+        } else {
+            return false;
+        }
+        if (id != 0) {
+            objects.put(id, added);
+        }
+        add(added);
+        return true;
+    }
+
+    /**
+     * Removes an interactive object or enemy spawn from the level, with its body, its entity or
+     * its enemy.
+     * @param id The object id.
+     * @return true if the object was removed, false if there is no such object.
+     */
+    public boolean removeObject(int id) {
+        final Streamable object = objects.remove(id);
+        if (object == null) {
+            return false;
+        }
+        remove(object);
+        if (object instanceof InteractiveTileObject) {
+            tileObjects.removeValue((InteractiveTileObject) object, true);
+        }
+        final Entity entity = entities.remove(id);
+        if (entity != null) {
+            screen.getEngine().removeEntity(entity);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a layer holds static geometry.
+     * @param layer The name of the layer.
+     * @return true if the rectangles of the layer are baked into static fixtures.
+     */
+    public boolean isStaticLayer(String layer) {
+        return findStaticLayers(layer) != null;
+    }
+
+    /**
+     * Bakes the static geometry of a layer again, together with the layers it is baked with.
+     * Fixtures whose rectangle is still the same are kept. It may not be called while the world
+     * is stepping.
+     * @param layer The name of the layer that changed.
+     * @return The number of fixtures that were removed and added, or -1 if the layer holds no
+     * static geometry.
+     */
+    public int rebakeLayer(String layer) {
+        final StaticLayers layers = findStaticLayers(layer);
+        return layers == null ? -1 : layers.bake(screen.getMap());
+    }
+
+    /**
+     * Finds the group of static layers a layer is baked in.
+     * @param layer The name of the layer.
+     * @return The group, or null if the layer holds no static geometry.
+     */
+    private StaticLayers findStaticLayers(String layer) {
+        for (StaticLayers layers : staticLayers) {
+            for (String name : layers.names) {
+                if (name.equals(layer)) {
+                    return layers;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of static rectangles on the map, before they were merged.
+     * @return The number of static rectangles.
+     */
+    public int getStaticRectangleCount() {
+        return staticRectangles;
+    }
+
+    /**
+     * Returns the number of fixtures the static rectangles were merged into.
+     * @return The number of static fixtures.
+     */
+    public int getStaticFixtureCount() {
+        return staticFixtures;
+    }
+
+    /**
+     * Gives an interactive object an entity in the engine.
+     * @param id The object id, or 0 if the object has none.
+     * @param object The object.
+     * @return The object.
+     */
+    private InteractiveTileObject addTileObject(int id, InteractiveTileObject object) {
+        final PooledEngine engine = screen.getEngine();
+        Entity entity = engine.createEntity();
+        TileObjectComponent component = engine.createComponent(TileObjectComponent.class);
+        component.object = object;
+        entity.add(component);
+        engine.addEntity(entity);
+        if (id != 0) {
+            entities.put(id, entity);
+        }
+        tileObjects.add(object);
+        return object;
+    }
+
+    /**
+     * Puts back the tiles the interactive objects had when the level started, so the map can be
+     * played again. This is done when the level is left.
+     */
+    public void restoreTiles() {
+        for (InteractiveTileObject object : tileObjects) {
+            object.restoreTile();
+        }
+    }
+
+    /**
+     * Adds an object to the level. Without streaming its body is created right away.
+     * @param object The object to add.
+     */
+    private void add(Streamable object) {
+        if (streaming) {
+            Rectangle bounds = object.getBounds();
+            index.insert(object, bounds.getX(), bounds.getX() + bounds.getWidth());
+        } else {
+            object.streamIn();
+            streamedIn.add(object);
+        }
+    }
+
+    /**
+     * Removes an object from the level. Its body is destroyed if it has one.
+     * @param object The object to remove, its bounds must not have changed since it was added.
+     */
+    private void remove(Streamable object) {
+        if (object.isStreamedIn()) {
+            object.streamOut();
+            streamedIn.removeValue(object, true);
+        }
+        if (streaming) {
+            Rectangle bounds = object.getBounds();
+            index.remove(object, bounds.getX(), bounds.getX() + bounds.getWidth());
+        }
+    }
+
+    /**
+     * Creates the bodies of the objects that came near the view and destroys the bodies of
+     * the objects that are far away. This does nothing when not streaming. It may not be called
+     * while the world is stepping.
+     * @param viewCenter The center of the view, in world units.
+     * @param viewHalfWidth Half the width of the view, in world units.
+     */
+    public void stream(float viewCenter, float viewHalfWidth) {
+        if (!streaming) {
+            return;
+        }
+        final float center = viewCenter * SuperMarioBros.PPM;
+        final float halfWidth = viewHalfWidth * SuperMarioBros.PPM;
+        final float outLeft = center - halfWidth - STREAM_OUT_MARGIN;
+        final float outRight = center + halfWidth + STREAM_OUT_MARGIN;
+        for (int i = streamedIn.size - 1; i >= 0; i--) {
+            Streamable object = streamedIn.get(i);
+            if (!object.isWithin(outLeft, outRight)) {
+                object.streamOut();
+                streamedIn.removeIndex(i);
+            }
+        }
+
+        final float inLeft = center - halfWidth - STREAM_IN_MARGIN;
+        final float inRight = center + halfWidth + STREAM_IN_MARGIN;
+        index.query(inLeft, inRight, candidates);
+        for (int i = 0; i < candidates.size; i++) {
+            Streamable object = candidates.get(i);
+            if (!object.isStreamedIn() && object.isWithin(inLeft, inRight)) {
+                object.streamIn();
+                streamedIn.add(object);
+            }
+        }
+        candidates.clear();
+    }
 
-        immobileBodyDefs(world, map, "Ground", SuperMarioBros.GROUND_BIT);
-        immobileBodyDefs(world, map, "Coins", SuperMarioBros.ITEM_BIT);
-        immobileBodyDefs(world, map, "Pipes", SuperMarioBros.OBJECT_BIT);
-        immobileBodyDefs(world, map, "Checkpoints", SuperMarioBros.OBJECT_BIT);
-        for(MapObject object : map.getLayers().get("Blocks").getObjects().getByType(RectangleMapObject.class)){
-            new Brick(screen, object);
+    /**
+     * Returns the number of map objects that currently have a body.
+     * @return The number of streamed in objects.
+     */
+    public int getStreamedInCount() {
+        return streamedIn.size;
+    }
+
+    /**
+     * Layers whose rectangles are baked together into static geometry of one catagory.
+     */
+    private class StaticLayers {
+
+        /**
+         * The catagory of the geometry.
+         */
+        private final short catagory;
+
+        /**
+         * The names of the layers.
+         */
+        private final String[] names;
+
+        /**
+         * The baked geometry.
+         */
+        private final Array<StaticGeometry> geometry = new Array<StaticGeometry>(false, 16);
+
+        /**
+         * The number of rectangles in the layers.
+         */
+        private int rectangles;
+
+        public StaticLayers(short catagory, String... names) {
+            this.catagory = catagory;
+            this.names = names;
         }
-        for(MapObject object : map.getLayers().get("ItemBlocks").getObjects().getByType(RectangleMapObject.class)){
-            new ItemBlock(screen, object);
+
+        /**
+         * Bakes the rectangles of the layers again and applies them.
+         * @param map The map.
+         * @return The number of rectangles of geometry that were removed and added.
+         */
+        public int bake(Map map) {
+            GeometryBaker baker = LevelGeometry.collect(map, names);
+            return apply(baker.bake(), baker.getInputCount());
         }
-        for(MapObject object : map.getLayers().get("Goombas").getObjects().getByType(RectangleMapObject.class)){
-            Rectangle rect = ((RectangleMapObject) object).getRectangle();
-            new Goomba(screen, rect.getX(), rect.getY());
+
+        /**
+         * Replaces the geometry with baked rectangles. Geometry that is the same as before is
+         * kept, the rest is removed and the new rectangles are added.
+         * @param baked The baked rectangles, in map pixels. The array is changed.
+         * @param inputCount The number of rectangles on the map before baking.
+         * @return The number of rectangles of geometry that were removed and added.
+         */
+        public int apply(Array<Rectangle> baked, int inputCount) {
+            int changed = 0;
+            for (int i = geometry.size - 1; i >= 0; i--) {
+                StaticGeometry old = geometry.get(i);
+                if (!baked.removeValue(old.bounds, false)) {
+                    remove(old);
+                    geometry.removeIndex(i);
+                    changed++;
+                }
+            }
+            for (Rectangle bounds : baked) {
+                StaticGeometry added = new StaticGeometry(bounds, catagory);
+                geometry.add(added);
+                add(added);
+                changed++;
+            }
+            staticRectangles += inputCount - rectangles;
+            rectangles = inputCount;
+            staticFixtures = 0;
+            for (StaticLayers layers : staticLayers) {
+                staticFixtures += layers.geometry.size;
+            }
+            return changed;
         }
     }
 
     /**
-     * Convienience method to build bodies.
-     * @param world The world
-     * @param map The map
-     * @param name The name of the layer.
-     * @param catagory The bitcatagory.
+     * A rectangle of static level geometry. The goal is a sensor with the level as its user data,
+     * so touching it tells the level.
      */
-    private void immobileBodyDefs(World world, Map map, String name, short catagory) {
-        BodyDef bdef = new BodyDef();
-        FixtureDef fdef = new FixtureDef();
-        PolygonShape shape = new PolygonShape();
-        Body body;
+    private class StaticGeometry implements Streamable {
+
+        /**
+         * The bounds of the geometry, in map pixels.
+         */
+        private final Rectangle bounds;
+
+        /**
+         * The catagory of the geometry.
+         */
+        private final short catagory;
+
+        /**
+         * The body, or null if the geometry is not streamed in.
+         */
+        private Body body;
 
-        for(MapObject object : map.getLayers().get(name).getObjects().getByType(RectangleMapObject.class)){
-            Rectangle rect = ((RectangleMapObject) object).getRectangle();
+        public StaticGeometry(Rectangle bounds, short catagory) {
+            this.bounds = bounds;
+            this.catagory = catagory;
+        }
 
-            bdef.type = BodyDef.BodyType.StaticBody;
-            bdef.position.set((rect.getX() + rect.getWidth() / 2) / SuperMarioBros.PPM, (rect.getY() + rect.getHeight() / 2) / SuperMarioBros.PPM);
+        @Override
+        public Rectangle getBounds() {
+            return bounds;
+        }
 
-            body = world.createBody(bdef);
+        @Override
+        public boolean isStreamedIn() {
+            return body != null;
+        }
+
+        @Override
+        public void streamIn() {
+            final boolean goal = catagory == SuperMarioBros.GOAL_BIT;
+            body = screen.getBodyPool().obtain((bounds.getX() + bounds.getWidth() / 2) / SuperMarioBros.PPM,
+                    (bounds.getY() + bounds.getHeight() / 2) / SuperMarioBros.PPM,
+                    bounds.getWidth() / 2 / SuperMarioBros.PPM, bounds.getHeight() / 2 / SuperMarioBros.PPM,
+                    catagory, goal ? screen : null, goal);
+        }
+
+        @Override
+        public void streamOut() {
+            screen.getBodyPool().free(body);
+            body = null;
+        }
+
+        @Override
+        public boolean isWithin(float left, float right) {
+            return bounds.getX() <= right && bounds.getX() + bounds.getWidth() >= left;
+        }
+    }
+
+    /**
+     * The place where an enemy enters the level. The enemy is spawned into the engine when the
+     * spawn point is streamed in, and removed once the enemy itself is far away from the camera.
+     */
+    private class EnemySpawn implements Streamable {
+
+        /**
+         * The bounds of the spawn point, in map pixels.
+         */
+        private final Rectangle bounds;
+
+        /**
+         * The spawned enemy, or null if it is not in the level.
+         */
+        private Goomba enemy;
+
+        public EnemySpawn(Rectangle bounds) {
+            this.bounds = bounds;
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            return bounds;
+        }
+
+        @Override
+        public boolean isStreamedIn() {
+            return enemy != null;
+        }
+
+        @Override
+        public void streamIn() {
+            enemy = screen.getGoombaPool().obtain();
+            enemy.spawn(screen.getEngine(), bounds.getX() / SuperMarioBros.PPM, bounds.getY() / SuperMarioBros.PPM);
+        }
+
+        @Override
+        public void streamOut() {
+            enemy.despawn(screen.getEngine());
+            screen.getGoombaPool().free(enemy);
+            enemy = null;
+        }
 
-            shape.setAsBox(rect.getWidth() / 2 / SuperMarioBros.PPM, rect.getHeight() / 2 / SuperMarioBros.PPM);
-            fdef.shape = shape;
-            fdef.filter.categoryBits = catagory;
-            body.createFixture(fdef);
+        @Override
+        public boolean isWithin(float left, float right) {
+            if (enemy == null) {
+                return bounds.getX() <= right && bounds.getX() + bounds.getWidth() >= left;
+            }
+            final float x = enemy.getBody().getPosition().x * SuperMarioBros.PPM;
+            return x >= left && x <= right;
         }
     }
 }
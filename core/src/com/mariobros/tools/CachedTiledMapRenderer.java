@@ -0,0 +1,461 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Renders the tile layers of a map from geometry that is baked once into a sprite cache,
+ * instead of submitting every visible cell again every frame. The map is cut into chunks of a
+ * fixed number of columns and the visible tile layers of a chunk are baked together into one
+ * cache, so drawing the map takes one call per visible chunk and texture. When the tiles come
+ * from one atlas page that is one call per chunk.
+ *
+ * <p>The tiles are only read when a chunk is baked. Code that changes a cell must call
+ * {@link #invalidate(int)}, after which only the chunk of that cell is baked again before the
+ * next frame. Animated tiles are baked with their current frame and a change of the visibility
+ * of a layer needs {@link #invalidateAll()}.</p>
+ *
+ * <p>This is not a {@link com.badlogic.gdx.maps.MapRenderer}: the layers of a chunk are baked
+ * together, so they can only be drawn together.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class CachedTiledMapRenderer implements Disposable {
+
+    /**
+     * The number of floats of a tile in the cache: four vertices of position, color and
+     * texture coordinates.
+     */
+    private static final int TILE_SIZE = 20;
+
+    /**
+     * The map that is drawn.
+     */
+    private final TiledMap map;
+
+    /**
+     * The size of a map pixel in world units.
+     */
+    private final float unitScale;
+
+    /**
+     * The number of columns of tiles in a chunk.
+     */
+    private final int chunkColumns;
+
+    /**
+     * The width of a chunk in world units.
+     */
+    private final float chunkWidth;
+
+    /**
+     * The tile layers of the map, in drawing order.
+     */
+    private final TiledMapTileLayer[] layers;
+
+    /**
+     * The cache id of every chunk.
+     */
+    private final int[] cacheIds;
+
+    /**
+     * The number of tiles every chunk was first baked with. A chunk can not be baked again with
+     * more tiles without baking every chunk.
+     */
+    private final int[] capacities;
+
+    /**
+     * true for the chunks that have to be baked again.
+     */
+    private final boolean[] dirty;
+
+    /**
+     * The vertices of the tile that is being added.
+     */
+    private final float[] vertices = new float[TILE_SIZE];
+
+    /**
+     * The transformation matrix of the view.
+     */
+    private final Matrix4 projection = new Matrix4();
+
+    /**
+     * The cache all chunks are baked in, or null before the first bake.
+     */
+    private SpriteCache cache;
+
+    /**
+     * The number of tiles the cache can hold.
+     */
+    private int cacheSize;
+
+    /**
+     * The left and right side of the view, in world units.
+     */
+    private float viewLeft, viewRight;
+
+    /**
+     * true if there are chunks that have to be baked again.
+     */
+    private boolean anyDirty;
+
+    /**
+     * Creates a new renderer and bakes all tile layers of the map.
+     * @param map The map to draw. All tile layers must have the same tile width.
+     * @param unitScale The size of a map pixel in world units.
+     * @param chunkColumns The number of columns of tiles in a chunk.
+     */
+    public CachedTiledMapRenderer(TiledMap map, float unitScale, int chunkColumns) {
+        if (chunkColumns <= 0) {
+            throw new IllegalArgumentException("A chunk must have columns, but had " + chunkColumns);
+        }
+        this.map = map;
+        this.unitScale = unitScale;
+        this.chunkColumns = chunkColumns;
+        final Array<TiledMapTileLayer> tileLayers = map.getLayers().getByType(TiledMapTileLayer.class);
+        layers = tileLayers.toArray(TiledMapTileLayer.class);
+        int columns = 0;
+        for (TiledMapTileLayer layer : layers) {
+            if (layer.getTileWidth() != layers[0].getTileWidth()) {
+                throw new IllegalArgumentException("Layer " + layer.getName() + " has tiles of width "
+                        + layer.getTileWidth() + " but " + layers[0].getName() + " of " + layers[0].getTileWidth());
+            }
+            columns = Math.max(columns, layer.getWidth());
+        }
+        chunkWidth = layers.length == 0 ? 1 : chunkColumns * layers[0].getTileWidth() * unitScale;
+        final int chunks = (columns + chunkColumns - 1) / chunkColumns;
+        cacheIds = new int[chunks];
+        capacities = new int[chunks];
+        dirty = new boolean[chunks];
+        bakeAll();
+    }
+
+    /**
+     * Marks the chunk of a cell as changed, so it is baked again before it is drawn.
+     * @param column The column of the cell.
+     */
+    public void invalidate(int column) {
+        final int chunk = column / chunkColumns;
+        if (chunk >= 0 && chunk < dirty.length) {
+            dirty[chunk] = true;
+            anyDirty = true;
+        }
+    }
+
+    /**
+     * Marks every chunk as changed, for when the tiles of the map are changed without telling
+     * which cells.
+     */
+    public void invalidateAll() {
+        for (int chunk = 0; chunk < dirty.length; chunk++) {
+            dirty[chunk] = true;
+        }
+        anyDirty = true;
+    }
+
+    /**
+     * Sets the view to the part of the map the camera sees.
+     * @param camera The camera.
+     */
+    public void setView(OrthographicCamera camera) {
+        final float width = camera.viewportWidth * camera.zoom;
+        setView(camera.combined, camera.position.x - width / 2, camera.position.y, width, 0);
+    }
+
+    /**
+     * Sets the view. Only the horizontal bounds are used to select the chunks to draw.
+     * @param projectionMatrix The projection matrix.
+     * @param viewboundsX The left of the view in world units.
+     * @param viewboundsY The bottom of the view in world units.
+     * @param viewboundsWidth The width of the view in world units.
+     * @param viewboundsHeight The height of the view in world units.
+     */
+    public void setView(Matrix4 projectionMatrix, float viewboundsX, float viewboundsY, float viewboundsWidth,
+                        float viewboundsHeight) {
+        projection.set(projectionMatrix);
+        viewLeft = viewboundsX;
+        viewRight = viewboundsX + viewboundsWidth;
+    }
+
+    /**
+     * Draws the visible chunks, after baking the ones that changed.
+     */
+    public void render() {
+        if (anyDirty) {
+            bakeDirty();
+        }
+        if (cacheIds.length == 0) {
+            return;
+        }
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        cache.setProjectionMatrix(projection);
+        cache.begin();
+        final int first = Math.max(0, (int) Math.floor(viewLeft / chunkWidth));
+        final int last = Math.min(cacheIds.length - 1, (int) Math.floor(viewRight / chunkWidth));
+        for (int chunk = first; chunk <= last; chunk++) {
+            cache.draw(cacheIds[chunk]);
+        }
+        cache.end();
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    /**
+     * Bakes every chunk again into a cache that is large enough for all tiles of the map.
+     */
+    private void bakeAll() {
+        int tiles = 0;
+        for (int chunk = 0; chunk < cacheIds.length; chunk++) {
+            tiles += countTiles(chunk);
+        }
+        if (cache == null || tiles > cacheSize) {
+            if (cache != null) {
+                cache.dispose();
+            }
+            cacheSize = Math.max(1, tiles);
+            cache = new SpriteCache(cacheSize, false);
+        } else {
+            cache.clear();
+        }
+        for (int chunk = 0; chunk < cacheIds.length; chunk++) {
+            cache.beginCache();
+            capacities[chunk] = addTiles(chunk);
+            cacheIds[chunk] = cache.endCache();
+            dirty[chunk] = false;
+        }
+        anyDirty = false;
+    }
+
+    /**
+     * Bakes the chunks that changed. If a chunk got more tiles than it was first baked with,
+     * there is no room for it and everything is baked again.
+     */
+    private void bakeDirty() {
+        for (int chunk = 0; chunk < dirty.length; chunk++) {
+            if (dirty[chunk] && countTiles(chunk) > capacities[chunk]) {
+                bakeAll();
+                return;
+            }
+        }
+        for (int chunk = 0; chunk < dirty.length; chunk++) {
+            if (dirty[chunk]) {
+                cache.beginCache(cacheIds[chunk]);
+                addTiles(chunk);
+                cache.endCache();
+                dirty[chunk] = false;
+            }
+        }
+        anyDirty = false;
+    }
+
+    /**
+     * Counts the tiles in a chunk of the visible layers.
+     * @param chunk The index of the chunk.
+     * @return The number of cells with a tile.
+     */
+    private int countTiles(int chunk) {
+        int tiles = 0;
+        for (TiledMapTileLayer layer : layers) {
+            if (layer.isVisible()) {
+                tiles += countTiles(layer, chunk);
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Adds the tiles of a chunk of the visible layers to the cache that is being built, layer
+     * by layer.
+     * @param chunk The index of the chunk.
+     * @return The number of tiles that were added.
+     */
+    private int addTiles(int chunk) {
+        int tiles = 0;
+        for (TiledMapTileLayer layer : layers) {
+            if (layer.isVisible()) {
+                tiles += addTiles(layer, chunk);
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Counts the tiles in a chunk of a layer.
+     * @param layer The layer.
+     * @param chunk The index of the chunk.
+     * @return The number of cells with a tile.
+     */
+    private int countTiles(TiledMapTileLayer layer, int chunk) {
+        final int start = chunk * chunkColumns;
+        final int end = Math.min(layer.getWidth(), start + chunkColumns);
+        int tiles = 0;
+        for (int row = 0; row < layer.getHeight(); row++) {
+            for (int column = start; column < end; column++) {
+                final TiledMapTileLayer.Cell cell = layer.getCell(column, row);
+                if (cell != null && cell.getTile() != null) {
+                    tiles++;
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Adds the tiles of a chunk of a layer to the cache that is being built, in the order the
+     * tile map renderers of libgdx draw them.
+     * @param layer The layer.
+     * @param chunk The index of the chunk.
+     * @return The number of tiles that were added.
+     */
+    private int addTiles(TiledMapTileLayer layer, int chunk) {
+        final float color = Color.toFloatBits(1f, 1f, 1f, layer.getOpacity());
+        final float tileWidth = layer.getTileWidth() * unitScale;
+        final float tileHeight = layer.getTileHeight() * unitScale;
+        final int start = chunk * chunkColumns;
+        final int end = Math.min(layer.getWidth(), start + chunkColumns);
+        int tiles = 0;
+        for (int row = layer.getHeight() - 1; row >= 0; row--) {
+            for (int column = start; column < end; column++) {
+                final TiledMapTileLayer.Cell cell = layer.getCell(column, row);
+                if (cell == null || cell.getTile() == null) {
+                    continue;
+                }
+                setVertices(cell, column * tileWidth, row * tileHeight, color);
+                cache.add(cell.getTile().getTextureRegion().getTexture(), vertices, 0, TILE_SIZE);
+                tiles++;
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Fills the vertices of the tile of a cell, with its offset, flips and rotation.
+     * @param cell The cell.
+     * @param x The left side of the cell, in world units.
+     * @param y The bottom side of the cell, in world units.
+     * @param color The packed color of the tile.
+     */
+    private void setVertices(TiledMapTileLayer.Cell cell, float x, float y, float color) {
+        final TiledMapTile tile = cell.getTile();
+        final TextureRegion region = tile.getTextureRegion();
+        final float x1 = x + tile.getOffsetX() * unitScale;
+        final float y1 = y + tile.getOffsetY() * unitScale;
+        final float x2 = x1 + region.getRegionWidth() * unitScale;
+        final float y2 = y1 + region.getRegionHeight() * unitScale;
+        final float u1 = region.getU();
+        final float v1 = region.getV2();
+        final float u2 = region.getU2();
+        final float v2 = region.getV();
+        corner(0, x1, y1, color, u1, v1);
+        corner(5, x1, y2, color, u1, v2);
+        corner(10, x2, y2, color, u2, v2);
+        corner(15, x2, y1, color, u2, v1);
+        if (cell.getFlipHorizontally()) {
+            swap(3, 13);
+            swap(8, 18);
+        }
+        if (cell.getFlipVertically()) {
+            swap(4, 14);
+            swap(9, 19);
+        }
+        switch (cell.getRotation()) {
+            case TiledMapTileLayer.Cell.ROTATE_90:
+                rotate(4, 9, 14, 19);
+                rotate(3, 8, 13, 18);
+                break;
+            case TiledMapTileLayer.Cell.ROTATE_180:
+                swap(3, 13);
+                swap(8, 18);
+                swap(4, 14);
+                swap(9, 19);
+                break;
+            case TiledMapTileLayer.Cell.ROTATE_270:
+                rotate(4, 19, 14, 9);
+                rotate(3, 18, 13, 8);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Sets one corner of the vertices.
+     * @param offset The index of the corner in the vertices.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @param color The packed color.
+     * @param u The u texture coordinate.
+     * @param v The v texture coordinate.
+     */
+    private void corner(int offset, float x, float y, float color, float u, float v) {
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = color;
+        vertices[offset + 3] = u;
+        vertices[offset + 4] = v;
+    }
+
+    /**
+     * Swaps two of the vertices.
+     * @param a The index of the first.
+     * @param b The index of the second.
+     */
+    private void swap(int a, int b) {
+        final float temp = vertices[a];
+        vertices[a] = vertices[b];
+        vertices[b] = temp;
+    }
+
+    /**
+     * Moves four of the vertices one place back: a gets b, b gets c, c gets d and d gets a.
+     * @param a The index of the first.
+     * @param b The index of the second.
+     * @param c The index of the third.
+     * @param d The index of the fourth.
+     */
+    private void rotate(int a, int b, int c, int d) {
+        final float temp = vertices[a];
+        vertices[a] = vertices[b];
+        vertices[b] = vertices[c];
+        vertices[c] = vertices[d];
+        vertices[d] = temp;
+    }
+
+    /**
+     * Returns the number of render calls of the last frame.
+     * @return The render calls of the cache.
+     */
+    public int getRenderCalls() {
+        return cache == null ? 0 : cache.renderCalls;
+    }
+
+    /**
+     * Returns the map that is drawn.
+     * @return The map.
+     */
+    public TiledMap getMap() {
+        return map;
+    }
+
+    @Override
+    public void dispose() {
+        if (cache != null) {
+            cache.dispose();
+            cache = null;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ShortArray;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.interfaces.ContactHandler;
+
+/**
+ * Routes the contacts of the world to the handler registered for the catagories of the two
+ * fixtures. The handlers are kept in a table indexed by the bit of each catagory, with an
+ * entry for both orders of every pair, so finding the handler and the order of the
+ * participants is a single lookup. The number of contacts that began is counted per pair.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class CollisionRouter implements ContactListener {
+
+    /**
+     * The number of catagories, one for every bit of the catagory bits.
+     */
+    public static final int CATEGORIES = 16;
+
+    /**
+     * The names of the catagories, by bit.
+     */
+    private static final String[] CATEGORY_NAMES = new String[CATEGORIES];
+
+    static {
+        name(SuperMarioBros.NOTHING_BIT, "NOTHING");
+        name(SuperMarioBros.GROUND_BIT, "GROUND");
+        name(SuperMarioBros.MARIO_BIT, "MARIO");
+        name(SuperMarioBros.OBJECT_BIT, "OBJECT");
+        name(SuperMarioBros.ENEMY_BIT, "ENEMY");
+        name(SuperMarioBros.ITEM_BIT, "ITEM");
+        name(SuperMarioBros.BLOCK_BIT, "BLOCK");
+        name(SuperMarioBros.MARIO_HEAD_BIT, "MARIO_HEAD");
+        name(SuperMarioBros.ENEMY_WEAKNESS_BIT, "ENEMY_WEAKNESS");
+        name(SuperMarioBros.GOAL_BIT, "GOAL");
+    }
+
+    /**
+     * The route for every ordered pair of catagories, or null if the pair is not handled.
+     */
+    private final Route[] routes = new Route[CATEGORIES * CATEGORIES];
+
+    /**
+     * The number of contacts that began for every registered pair, by pair.
+     */
+    private final IntArray counts = new IntArray();
+
+    /**
+     * The catagories of every registered pair, two per pair.
+     */
+    private final ShortArray pairs = new ShortArray();
+
+    /**
+     * Registers the handler for contacts between two catagories. The handler gets the user
+     * data of the fixture of the first catagory as its first participant.
+     * @param categoryA The first catagory, a single bit.
+     * @param categoryB The second catagory, a single bit.
+     * @param handler The handler.
+     * @param <A> The type of the user data of the first catagory.
+     * @param <B> The type of the user data of the second catagory.
+     */
+    @SuppressWarnings("unchecked")
+    public <A, B> void register(short categoryA, short categoryB, ContactHandler<A, B> handler) {
+        final int a = bit(categoryA);
+        final int b = bit(categoryB);
+        if (routes[a * CATEGORIES + b] != null) {
+            throw new IllegalArgumentException(name(a) + "/" + name(b) + " already has a handler");
+        }
+        final int pair = counts.size;
+        counts.add(0);
+        pairs.add(categoryA);
+        pairs.add(categoryB);
+        ContactHandler<Object, Object> untyped = (ContactHandler<Object, Object>) handler;
+        routes[a * CATEGORIES + b] = new Route(untyped, false, pair);
+        if (a != b) {
+            routes[b * CATEGORIES + a] = new Route(untyped, true, pair);
+        }
+    }
+
+    /**
+     * Returns the number of contacts that began between two catagories.
+     * @param categoryA The first catagory.
+     * @param categoryB The second catagory.
+     * @return The number of contacts, or 0 if the pair has no handler.
+     */
+    public int getContactCount(short categoryA, short categoryB) {
+        final Route route = routes[bit(categoryA) * CATEGORIES + bit(categoryB)];
+        return route == null ? 0 : counts.get(route.pair);
+    }
+
+    /**
+     * Sets the contact count of every pair back to 0.
+     */
+    public void resetContactCounts() {
+        for (int i = 0; i < counts.size; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    @Override
+    public void beginContact(Contact contact) {
+        final Fixture fixA = contact.getFixtureA();
+        final Fixture fixB = contact.getFixtureB();
+        final Route route = route(fixA, fixB);
+        if (route != null) {
+            counts.incr(route.pair, 1);
+            if (route.swapped) {
+                route.handler.beginContact(fixB.getUserData(), fixA.getUserData(), contact);
+            } else {
+                route.handler.beginContact(fixA.getUserData(), fixB.getUserData(), contact);
+            }
+        }
+    }
+
+    @Override
+    public void endContact(Contact contact) {
+        final Fixture fixA = contact.getFixtureA();
+        final Fixture fixB = contact.getFixtureB();
+        final Route route = route(fixA, fixB);
+        if (route != null) {
+            if (route.swapped) {
+                route.handler.endContact(fixB.getUserData(), fixA.getUserData(), contact);
+            } else {
+                route.handler.endContact(fixA.getUserData(), fixB.getUserData(), contact);
+            }
+        }
+    }
+
+    @Override
+    public void preSolve(Contact contact, Manifold oldManifold) {
+        final Fixture fixA = contact.getFixtureA();
+        final Fixture fixB = contact.getFixtureB();
+        final Route route = route(fixA, fixB);
+        if (route != null) {
+            if (route.swapped) {
+                route.handler.preSolve(fixB.getUserData(), fixA.getUserData(), contact, oldManifold);
+            } else {
+                route.handler.preSolve(fixA.getUserData(), fixB.getUserData(), contact, oldManifold);
+            }
+        }
+    }
+
+    @Override
+    public void postSolve(Contact contact, ContactImpulse impulse) {
+        final Fixture fixA = contact.getFixtureA();
+        final Fixture fixB = contact.getFixtureB();
+        final Route route = route(fixA, fixB);
+        if (route != null) {
+            if (route.swapped) {
+                route.handler.postSolve(fixB.getUserData(), fixA.getUserData(), contact, impulse);
+            } else {
+                route.handler.postSolve(fixA.getUserData(), fixB.getUserData(), contact, impulse);
+            }
+        }
+    }
+
+    /**
+     * Lists the contact count of every registered pair.
+     * @return The contact counts, for example "MARIO/ENEMY=2".
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < counts.size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(name(bit(pairs.get(i * 2)))).append('/').append(name(bit(pairs.get(i * 2 + 1))))
+                    .append('=').append(counts.get(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Finds the route for the catagories of two fixtures.
+     * @param fixA The first fixture of the contact.
+     * @param fixB The second fixture of the contact.
+     * @return The route, or null if the pair is not handled.
+     */
+    private Route route(Fixture fixA, Fixture fixB) {
+        final int a = Integer.numberOfTrailingZeros(fixA.getFilterData().categoryBits);
+        final int b = Integer.numberOfTrailingZeros(fixB.getFilterData().categoryBits);
+        if (a >= CATEGORIES || b >= CATEGORIES) {
+            return null;
+        }
+        return routes[a * CATEGORIES + b];
+    }
+
+    /**
+     * Returns the bit of a catagory.
+     * @param category The catagory, a single bit.
+     * @return The index of the bit.
+     */
+    private static int bit(short category) {
+        if (Integer.bitCount(category & 0xFFFF) != 1) {
+            throw new IllegalArgumentException("A catagory must be a single bit but was " + category);
+        }
+        return Integer.numberOfTrailingZeros(category & 0xFFFF);
+    }
+
+    /**
+     * Gives a catagory a name.
+     * @param category The catagory.
+     * @param name The name of the catagory.
+     */
+    private static void name(short category, String name) {
+        CATEGORY_NAMES[bit(category)] = name;
+    }
+
+    /**
+     * Returns the name of a catagory.
+     * @param bit The bit of the catagory.
+     * @return The name of the catagory.
+     */
+    private static String name(int bit) {
+        return CATEGORY_NAMES[bit] == null ? "BIT_" + bit : CATEGORY_NAMES[bit];
+    }
+
+    /**
+     * The entry of the table for one ordered pair of catagories.
+     */
+    private static class Route {
+
+        /**
+         * The handler of the pair.
+         */
+        private final ContactHandler<Object, Object> handler;
+
+        /**
+         * true if the catagories are in the opposite order of the handler.
+         */
+        private final boolean swapped;
+
+        /**
+         * The index of the pair in the counts.
+         */
+        private final int pair;
+
+        public Route(ContactHandler<Object, Object> handler, boolean swapped, int pair) {
+            this.handler = handler;
+            this.swapped = swapped;
+            this.pair = pair;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.mariobros.interfaces.ContactHandler;
+
+/**
+ * A contact handler that does nothing, so handlers only have to override the callbacks they
+ * need.
+ *
+ * @param <A> The type of the user data of the first catagory.
+ * @param <B> The type of the user data of the second catagory.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public abstract class ContactAdapter<A, B> implements ContactHandler<A, B> {
+
+    @Override
+    public void beginContact(A a, B b, Contact contact) {
+
+    }
+
+    @Override
+    public void endContact(A a, B b, Contact contact) {
+
+    }
+
+    @Override
+    public void preSolve(A a, B b, Contact contact, Manifold oldManifold) {
+
+    }
+
+    @Override
+    public void postSolve(A a, B b, Contact contact, ContactImpulse impulse) {
+
+    }
+}
@@ -0,0 +1,340 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Arrays;
+
+/**
+ * Measures how long every phase of a frame takes. The times of the last frames are kept in
+ * ring buffers that are allocated once, together with the number of render calls of the batch
+ * and the number of texture bindings, so profiling does not change what is measured. The
+ * buffers can be summarized as percentiles or written to a CSV file.
+ *
+ * <p>A frame is measured by calling {@link #beginFrame()}, then {@link #mark(Phase)} at the
+ * end of every phase and finally {@link #endFrame()}. Each mark measures the time since the
+ * previous mark.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class FrameProfiler {
+
+    /**
+     * The phases of a frame of the level.
+     */
+    public enum Phase {INPUT, PHYSICS, PLAYER, CAMERA, ENTITIES, MAP, DEBUG, SPRITES, HUD, LOADING};
+
+    /**
+     * The default number of frames that are kept.
+     */
+    public static final int DEFAULT_CAPACITY = 600;
+
+    /**
+     * The phases, cached so the enum does not copy its values every frame.
+     */
+    private static final Phase[] PHASES = Phase.values();
+
+    /**
+     * The index of the total frame time in the time buffers.
+     */
+    private static final int TOTAL = PHASES.length;
+
+    /**
+     * The batch whose render calls are counted.
+     */
+    private final SpriteBatch batch;
+
+    /**
+     * The number of frames that are kept.
+     */
+    private final int capacity;
+
+    /**
+     * The time of every phase and the total time of the kept frames in nanoseconds, by phase.
+     */
+    private final long[][] times;
+
+    /**
+     * The render calls of the batch in the kept frames.
+     */
+    private final int[] renderCalls;
+
+    /**
+     * The texture bindings in the kept frames.
+     */
+    private final int[] textureBindings;
+
+    /**
+     * Reused buffer for sorting the times of a phase.
+     */
+    private final long[] sorted;
+
+    /**
+     * The index the next frame is stored at.
+     */
+    private int next;
+
+    /**
+     * The number of frames stored, at most the capacity.
+     */
+    private int count;
+
+    /**
+     * The time of the start of the frame.
+     */
+    private long frameStart;
+
+    /**
+     * The time of the last mark.
+     */
+    private long lastMark;
+
+    /**
+     * The total render calls of the batch at the start of the frame.
+     */
+    private int renderCallsAtStart;
+
+    /**
+     * true if frames are measured.
+     */
+    private boolean enabled;
+
+    /**
+     * Creates a profiler that keeps the default number of frames.
+     * @param batch The batch whose render calls are counted.
+     */
+    public FrameProfiler(SpriteBatch batch) {
+        this(batch, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a profiler.
+     * @param batch The batch whose render calls are counted.
+     * @param capacity The number of frames that are kept.
+     */
+    public FrameProfiler(SpriteBatch batch, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive but was " + capacity);
+        }
+        this.batch = batch;
+        this.capacity = capacity;
+        times = new long[PHASES.length + 1][capacity];
+        renderCalls = new int[capacity];
+        textureBindings = new int[capacity];
+        sorted = new long[capacity];
+    }
+
+    /**
+     * Turns measuring on or off. The texture bindings are only counted while the profiler is
+     * enabled, since counting them wraps the GL calls.
+     * @param enabled true to measure frames.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled == this.enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (enabled) {
+            GLProfiler.enable();
+        } else {
+            GLProfiler.disable();
+        }
+    }
+
+    /**
+     * Checks if frames are measured.
+     * @return true if the profiler is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts measuring a frame.
+     */
+    public void beginFrame() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < times.length; i++) {
+            times[i][next] = 0;
+        }
+        renderCalls[next] = 0;
+        GLProfiler.reset();
+        renderCallsAtStart = batch.totalRenderCalls;
+        frameStart = TimeUtils.nanoTime();
+        lastMark = frameStart;
+    }
+
+    /**
+     * Ends a phase of the frame. The phase took the time since the previous mark.
+     * @param phase The phase that ended.
+     */
+    public void mark(Phase phase) {
+        if (!enabled) {
+            return;
+        }
+        final long now = TimeUtils.nanoTime();
+        times[phase.ordinal()][next] = now - lastMark;
+        lastMark = now;
+    }
+
+    /**
+     * Adds render calls that were not made by the batch to the current frame, such as the
+     * calls of a sprite cache.
+     * @param calls The number of render calls.
+     */
+    public void addRenderCalls(int calls) {
+        if (enabled) {
+            renderCalls[next] += calls;
+        }
+    }
+
+    /**
+     * Ends measuring a frame and stores it.
+     */
+    public void endFrame() {
+        if (!enabled) {
+            return;
+        }
+        times[TOTAL][next] = TimeUtils.nanoTime() - frameStart;
+        renderCalls[next] += batch.totalRenderCalls - renderCallsAtStart;
+        textureBindings[next] = GLProfiler.textureBindings;
+        next = (next + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+    }
+
+    /**
+     * Returns the number of frames that are stored.
+     * @return The number of frames, at most the capacity.
+     */
+    public int getFrameCount() {
+        return count;
+    }
+
+    /**
+     * Returns a percentile of the time of a phase over the stored frames.
+     * @param phase The phase.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The time in nanoseconds, or 0 if no frames are stored.
+     */
+    public long getPercentile(Phase phase, float percentile) {
+        return percentile(times[phase.ordinal()], percentile);
+    }
+
+    /**
+     * Returns a percentile of the total frame time over the stored frames.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The time in nanoseconds, or 0 if no frames are stored.
+     */
+    public long getFramePercentile(float percentile) {
+        return percentile(times[TOTAL], percentile);
+    }
+
+    /**
+     * Returns the render calls of the batch in the last stored frame.
+     * @return The render calls, or 0 if no frames are stored.
+     */
+    public int getLastRenderCalls() {
+        return count == 0 ? 0 : renderCalls[(next + capacity - 1) % capacity];
+    }
+
+    /**
+     * Returns the texture bindings in the last stored frame.
+     * @return The texture bindings, or 0 if no frames are stored.
+     */
+    public int getLastTextureBindings() {
+        return count == 0 ? 0 : textureBindings[(next + capacity - 1) % capacity];
+    }
+
+    /**
+     * Returns the mean render calls per frame over the stored frames.
+     * @return The mean render calls, or 0 if no frames are stored.
+     */
+    public float getMeanRenderCalls() {
+        return mean(renderCalls);
+    }
+
+    /**
+     * Returns the mean texture bindings per frame over the stored frames.
+     * @return The mean texture bindings, or 0 if no frames are stored.
+     */
+    public float getMeanTextureBindings() {
+        return mean(textureBindings);
+    }
+
+    /**
+     * Finds the mean of the stored values of a buffer.
+     * @param values The buffer.
+     * @return The mean, or 0 if no frames are stored.
+     */
+    private float mean(int[] values) {
+        if (count == 0) {
+            return 0;
+        }
+        final int start = (next + capacity - count) % capacity;
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[(start + i) % capacity];
+        }
+        return (float) sum / count;
+    }
+
+    /**
+     * Finds a percentile of the stored values of a buffer.
+     * @param values The buffer.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The value at the percentile, or 0 if no frames are stored.
+     */
+    private long percentile(long[] values, float percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final int start = (next + capacity - count) % capacity;
+        for (int i = 0; i < count; i++) {
+            sorted[i] = values[(start + i) % capacity];
+        }
+        Arrays.sort(sorted, 0, count);
+        final int index = Math.min(count - 1, (int) (percentile / 100 * count));
+        return sorted[index];
+    }
+
+    /**
+     * Writes the stored frames to a CSV file, oldest first. The times are in microseconds.
+     * @param file The file to write to.
+     */
+    public void writeCsv(FileHandle file) {
+        StringBuilder csv = new StringBuilder();
+        csv.append("frame");
+        for (Phase phase : PHASES) {
+            csv.append(',').append(phase.name().toLowerCase());
+        }
+        csv.append(",total,renderCalls,textureBindings\n");
+        final int start = (next + capacity - count) % capacity;
+        for (int i = 0; i < count; i++) {
+            final int frame = (start + i) % capacity;
+            csv.append(i);
+            for (int j = 0; j < times.length; j++) {
+                csv.append(',').append(times[j][frame] / 1000);
+            }
+            csv.append(',').append(renderCalls[frame]).append(',').append(textureBindings[frame]).append('\n');
+        }
+        file.writeString(csv.toString(), false);
+    }
+
+    /**
+     * Returns the phases of a frame.
+     * @return The phases, in the order they are measured. This array must not be changed.
+     */
+    public static Phase[] getPhases() {
+        return PHASES;
+    }
+}
@@ -0,0 +1,174 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Merges the rectangles of static level geometry into as few rectangles as possible. The map
+ * is drawn as many small rectangles that touch or overlap, and every one of them would become a
+ * fixture of its own with a seam the player can catch on. The baker covers exactly the same area
+ * with larger rectangles, so the world has fewer fixtures and fewer seams.
+ *
+ * <p>The edges of all rectangles cut the map into a grid of cells that are either completely
+ * covered or completely empty. Covered cells are then grouped greedily, first into the widest
+ * run along a row and then into as many rows below it as share that run.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class GeometryBaker {
+
+    /**
+     * The rectangles that are baked.
+     */
+    private final Array<Rectangle> input;
+
+    /**
+     * The number of rectangles that were skipped because they have no area.
+     */
+    private int skipped;
+
+    public GeometryBaker() {
+        input = new Array<Rectangle>();
+    }
+
+    /**
+     * Adds a rectangle to bake. Rectangles without area cannot be collided with and are skipped.
+     * @param rectangle The rectangle to add.
+     */
+    public void add(Rectangle rectangle) {
+        if (rectangle.getWidth() > 0 && rectangle.getHeight() > 0) {
+            input.add(rectangle);
+        } else {
+            skipped++;
+        }
+    }
+
+    /**
+     * Returns the number of rectangles that were added, including the skipped ones.
+     * @return The number of rectangles before baking.
+     */
+    public int getInputCount() {
+        return input.size + skipped;
+    }
+
+    /**
+     * Merges the added rectangles.
+     * @return New rectangles that together cover exactly the area of the added rectangles.
+     */
+    public Array<Rectangle> bake() {
+        final Array<Rectangle> result = new Array<Rectangle>();
+        if (input.size == 0) {
+            return result;
+        }
+        final float[] xs = edges(true);
+        final float[] ys = edges(false);
+        final int columns = xs.length - 1;
+        final int rows = ys.length - 1;
+        final boolean[][] covered = new boolean[rows][columns];
+        for (Rectangle rectangle : input) {
+            final int left = indexOf(xs, rectangle.getX());
+            final int right = indexOf(xs, rectangle.getX() + rectangle.getWidth());
+            final int bottom = indexOf(ys, rectangle.getY());
+            final int top = indexOf(ys, rectangle.getY() + rectangle.getHeight());
+            for (int row = bottom; row < top; row++) {
+                for (int column = left; column < right; column++) {
+                    covered[row][column] = true;
+                }
+            }
+        }
+
+        for (int row = 0; row < rows; row++) {
+            int column = 0;
+            while (column < columns) {
+                if (!covered[row][column]) {
+                    column++;
+                    continue;
+                }
+                int end = column;
+                while (end < columns && covered[row][end]) {
+                    end++;
+                }
+                int top = row + 1;
+                while (top < rows && isCovered(covered[top], column, end)) {
+                    top++;
+                }
+                for (int r = row; r < top; r++) {
+                    for (int c = column; c < end; c++) {
+                        covered[r][c] = false;
+                    }
+                }
+                result.add(new Rectangle(xs[column], ys[row], xs[end] - xs[column], ys[top] - ys[row]));
+                column = end;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if all cells of a row between two columns are covered.
+     * @param row The cells of the row.
+     * @param start The first column.
+     * @param end The column after the last one.
+     * @return true if all the cells are covered.
+     */
+    private boolean isCovered(boolean[] row, int start, int end) {
+        for (int column = start; column < end; column++) {
+            if (!row[column]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the sorted distinct edges of the added rectangles along one axis.
+     * @param horizontal true for the x axis, false for the y axis.
+     * @return The edges, in ascending order.
+     */
+    private float[] edges(boolean horizontal) {
+        final FloatArray edges = new FloatArray(input.size * 2);
+        for (Rectangle rectangle : input) {
+            if (horizontal) {
+                edges.add(rectangle.getX());
+                edges.add(rectangle.getX() + rectangle.getWidth());
+            } else {
+                edges.add(rectangle.getY());
+                edges.add(rectangle.getY() + rectangle.getHeight());
+            }
+        }
+        edges.sort();
+        int size = 0;
+        for (int i = 0; i < edges.size; i++) {
+            if (size == 0 || edges.get(i) != edges.get(size - 1)) {
+                edges.set(size++, edges.get(i));
+            }
+        }
+        edges.truncate(size);
+        return edges.toArray();
+    }
+
+    /**
+     * Finds an edge in the sorted edges.
+     * @param edges The sorted edges.
+     * @param value The edge to find.
+     * @return The index of the edge.
+     */
+    private int indexOf(float[] edges, float value) {
+        int low = 0;
+        int high = edges.length - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (edges[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mariobros.tools;
+
+import com.mariobros.interfaces.InputSource;
+
+/**
+ * Records the buttons of another input source while passing them on to the level.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class InputRecorder implements InputSource {
+
+    /**
+     * The source that is recorded.
+     */
+    private final InputSource source;
+
+    /**
+     * The recording the buttons are added to.
+     */
+    private final InputRecording recording;
+
+    /**
+     * Creates a new recorder.
+     * @param source The source to record.
+     * @param recording The recording to add the buttons of every step to.
+     */
+    public InputRecorder(InputSource source, InputRecording recording) {
+        this.source = source;
+        this.recording = recording;
+    }
+
+    @Override
+    public void poll() {
+        source.poll();
+    }
+
+    @Override
+    public int nextStep() {
+        final int buttons = source.nextStep();
+        recording.addStep(buttons);
+        return buttons;
+    }
+
+    /**
+     * Returns the recording.
+     * @return The recording the steps are added to.
+     */
+    public InputRecording getRecording() {
+        return recording;
+    }
+}
@@ -0,0 +1,315 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.mariobros.sprites.hero.Mario;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/**
+ * The buttons of every physics step of a played level, together with the state mario ended
+ * in. Replaying the buttons from the start of the level must end in the same state, which
+ * makes a recording both a workload and a regression check.
+ *
+ * <p>The buttons of a step take four bits, two steps are packed in a byte with the first step
+ * in the low bits. All numbers are big endian. The file is laid out as:</p>
+ * <pre>
+ * int magic, int version
+ * short level name length, level name in UTF-8
+ * short profile name length, performance profile name in UTF-8
+ * int stepRate, int stepCount
+ * float x, float y, float velocityX, float velocityY (the final body of mario)
+ * byte powerup, byte dead
+ * (stepCount + 1) / 2 bytes of packed buttons
+ * </pre>
+ *
+ * <p>The performance profile sets the iterations of the physics solver, so a recording can only
+ * be replayed with the profile it was recorded with.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class InputRecording {
+
+    /**
+     * The extension of recording files.
+     */
+    public static final String EXTENSION = ".rec";
+
+    /**
+     * The magic number at the start of every recording ("SMBR").
+     */
+    public static final int MAGIC = 0x534D4252;
+
+    /**
+     * The version of the format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The level that was played.
+     */
+    private final String level;
+
+    /**
+     * The number of physics steps per second the level was played at.
+     */
+    private final int stepRate;
+
+    /**
+     * The performance profile the level was played with.
+     */
+    private final PerformanceProfile profile;
+
+    /**
+     * The buttons of the steps, packed two steps per byte.
+     */
+    private final ByteArray buttons;
+
+    /**
+     * The number of recorded steps.
+     */
+    private int stepCount;
+
+    /**
+     * The position of mario after the last step.
+     */
+    private final Vector2 finalPosition = new Vector2();
+
+    /**
+     * The velocity of mario after the last step.
+     */
+    private final Vector2 finalVelocity = new Vector2();
+
+    /**
+     * The powerup mario had after the last step.
+     */
+    private Mario.PowerUp finalPowerUp = Mario.PowerUp.NORMAL;
+
+    /**
+     * true if mario was dead after the last step.
+     */
+    private boolean finalDead;
+
+    /**
+     * Creates a new empty recording.
+     * @param level The level that is played.
+     * @param stepRate The number of physics steps per second.
+     * @param profile The performance profile the level is played with.
+     */
+    public InputRecording(String level, int stepRate, PerformanceProfile profile) {
+        this.level = level;
+        this.stepRate = stepRate;
+        this.profile = profile;
+        buttons = new ByteArray();
+    }
+
+    /**
+     * Adds the buttons of the next step.
+     * @param stepButtons The bits of the buttons of the step.
+     */
+    public void addStep(int stepButtons) {
+        if ((stepCount & 1) == 0) {
+            buttons.add((byte) (stepButtons & 0xF));
+        } else {
+            buttons.items[stepCount >> 1] |= (byte) ((stepButtons & 0xF) << 4);
+        }
+        stepCount++;
+    }
+
+    /**
+     * Returns the buttons of a step.
+     * @param step The index of the step.
+     * @return The bits of the buttons of the step.
+     */
+    public int getButtons(int step) {
+        if (step < 0 || step >= stepCount) {
+            throw new IndexOutOfBoundsException("Step " + step + " of " + stepCount);
+        }
+        final int packed = buttons.get(step >> 1) & 0xFF;
+        return (step & 1) == 0 ? packed & 0xF : packed >> 4;
+    }
+
+    /**
+     * Returns the number of recorded steps.
+     * @return The number of steps.
+     */
+    public int getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Returns the level that was played.
+     * @return The path of the level without extension.
+     */
+    public String getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the number of physics steps per second the level was played at.
+     * @return The step rate.
+     */
+    public int getStepRate() {
+        return stepRate;
+    }
+
+    /**
+     * Returns the performance profile the level was played with.
+     * @return The profile.
+     */
+    public PerformanceProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Remembers the state of mario at the end of the recording.
+     * @param player The mario that was played.
+     */
+    public void setFinalState(Mario player) {
+        finalPosition.set(player.getBody().getPosition());
+        finalVelocity.set(player.getBody().getLinearVelocity());
+        finalPowerUp = player.getPowerUp();
+        finalDead = player.isDead();
+    }
+
+    /**
+     * Checks if mario ended in exactly the state of the recording.
+     * @param player The mario of the replay.
+     * @return true if the position, velocity, powerup and death of mario are the same.
+     */
+    public boolean matchesFinalState(Mario player) {
+        return finalPosition.equals(player.getBody().getPosition())
+                && finalVelocity.equals(player.getBody().getLinearVelocity())
+                && finalPowerUp == player.getPowerUp() && finalDead == player.isDead();
+    }
+
+    /**
+     * Describes the state of mario at the end of the recording.
+     * @return The final state, for example "position (1.0,0.5), velocity (0.0,0.0), NORMAL".
+     */
+    public String getFinalState() {
+        return describe(finalPosition, finalVelocity, finalPowerUp, finalDead);
+    }
+
+    /**
+     * Describes the state of a mario the same way as the final state of a recording.
+     * @param player The mario.
+     * @return The state of the mario.
+     */
+    public static String describe(Mario player) {
+        return describe(player.getBody().getPosition(), player.getBody().getLinearVelocity(),
+                player.getPowerUp(), player.isDead());
+    }
+
+    /**
+     * Describes the state of mario.
+     * @param position The position.
+     * @param velocity The velocity.
+     * @param powerUp The powerup.
+     * @param dead true if mario is dead.
+     * @return The state.
+     */
+    private static String describe(Vector2 position, Vector2 velocity, Mario.PowerUp powerUp, boolean dead) {
+        return "position " + position + ", velocity " + velocity + ", " + powerUp + (dead ? ", dead" : "");
+    }
+
+    /**
+     * Writes the recording to a file.
+     * @param file The file to write to.
+     */
+    public void write(FileHandle file) {
+        final byte[] name = encode(level);
+        final byte[] profileName = encode(profile.name());
+        final ByteBuffer data = ByteBuffer.allocate(4 * 2 + 2 + name.length + 2 + profileName.length + 4 * 2
+                + 4 * 4 + 2 + buttons.size);
+        data.putInt(MAGIC);
+        data.putInt(VERSION);
+        data.putShort((short) name.length);
+        data.put(name);
+        data.putShort((short) profileName.length);
+        data.put(profileName);
+        data.putInt(stepRate);
+        data.putInt(stepCount);
+        data.putFloat(finalPosition.x);
+        data.putFloat(finalPosition.y);
+        data.putFloat(finalVelocity.x);
+        data.putFloat(finalVelocity.y);
+        data.put((byte) finalPowerUp.ordinal());
+        data.put((byte) (finalDead ? 1 : 0));
+        data.put(buttons.items, 0, buttons.size);
+        file.writeBytes(data.array(), false);
+    }
+
+    /**
+     * Reads a recording from a file.
+     * @param file The file to read.
+     * @return The recording.
+     */
+    public static InputRecording read(FileHandle file) {
+        final ByteBuffer data = ByteBuffer.wrap(file.readBytes());
+        if (data.getInt() != MAGIC) {
+            throw new GdxRuntimeException(file + " is not an input recording");
+        }
+        final int version = data.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException(file + " has version " + version + " but " + VERSION + " is supported");
+        }
+        final String level = readString(data);
+        final PerformanceProfile profile = PerformanceProfile.forName(readString(data));
+        final InputRecording recording = new InputRecording(level, data.getInt(), profile);
+        final int steps = data.getInt();
+        recording.finalPosition.set(data.getFloat(), data.getFloat());
+        recording.finalVelocity.set(data.getFloat(), data.getFloat());
+        recording.finalPowerUp = Mario.PowerUp.values()[data.get()];
+        recording.finalDead = data.get() != 0;
+        final byte[] packed = new byte[(steps + 1) / 2];
+        data.get(packed);
+        recording.buttons.addAll(packed);
+        recording.stepCount = steps;
+        return recording;
+    }
+
+    /**
+     * Reads a string with its length in front of it.
+     * @param data The data to read from.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer data) {
+        final byte[] bytes = new byte[data.getShort() & 0xFFFF];
+        data.get(bytes);
+        return decode(bytes);
+    }
+
+    /**
+     * Encodes a string in UTF-8.
+     * @param string The string.
+     * @return The bytes of the string.
+     */
+    private static byte[] encode(String string) {
+        try {
+            return string.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+
+    /**
+     * Decodes a string from UTF-8.
+     * @param bytes The bytes of the string.
+     * @return The string.
+     */
+    private static String decode(byte[] bytes) {
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+}
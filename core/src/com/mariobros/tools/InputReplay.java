@@ -0,0 +1,55 @@
+package com.mariobros.tools;
+
+import com.mariobros.interfaces.InputSource;
+
+/**
+ * Plays the buttons of a recording back, one step at a time. After the last recorded step no
+ * buttons are pressed.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class InputReplay implements InputSource {
+
+    /**
+     * The recording that is played back.
+     */
+    private final InputRecording recording;
+
+    /**
+     * The index of the next step.
+     */
+    private int step;
+
+    /**
+     * Creates a new replay from the first step of a recording.
+     * @param recording The recording to play back.
+     */
+    public InputReplay(InputRecording recording) {
+        this.recording = recording;
+    }
+
+    @Override
+    public void poll() {
+
+    }
+
+    @Override
+    public int nextStep() {
+        if (isFinished()) {
+            return 0;
+        }
+        return recording.getButtons(step++);
+    }
+
+    /**
+     * Checks if every recorded step has been played back.
+     * @return true if the replay is finished.
+     */
+    public boolean isFinished() {
+        return step >= recording.getStepCount();
+    }
+}
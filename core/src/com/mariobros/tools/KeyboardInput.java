@@ -0,0 +1,49 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.mariobros.interfaces.InputSource;
+
+/**
+ * Reads the buttons from the keyboard. A press of the up key is remembered until the next
+ * physics step, so it is not lost in frames without a step.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class KeyboardInput implements InputSource {
+
+    /**
+     * true if the up key was pressed since the last physics step.
+     */
+    private boolean jumpRequested;
+
+    @Override
+    public void poll() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.UP)) {
+            jumpRequested = true;
+        }
+    }
+
+    @Override
+    public int nextStep() {
+        int buttons = 0;
+        if (jumpRequested) {
+            buttons |= UP;
+            jumpRequested = false;
+        }
+        if (Gdx.input.isKeyPressed(Input.Keys.LEFT)) {
+            buttons |= LEFT;
+        }
+        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT)) {
+            buttons |= RIGHT;
+        }
+        if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) {
+            buttons |= DOWN;
+        }
+        return buttons;
+    }
+}
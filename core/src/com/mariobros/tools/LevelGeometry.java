@@ -0,0 +1,97 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.maps.Map;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.mariobros.SuperMarioBros;
+
+/**
+ * The static geometry of a level: the rectangles of the layers that never move, merged per
+ * catagory by a {@link GeometryBaker}. Baking only reads the map and does not touch the world,
+ * so the geometry of the next level can be baked on another thread while the current level is
+ * played.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class LevelGeometry {
+
+    /**
+     * The layers that are baked together. Layers a map does not have are skipped.
+     */
+    public static final String[][] LAYERS = {{"Ground"}, {"Coins"}, {"Pipes", "Checkpoints"}, {"Goal"}};
+
+    /**
+     * The catagory of each group of layers.
+     */
+    public static final short[] CATEGORIES = {SuperMarioBros.GROUND_BIT, SuperMarioBros.ITEM_BIT,
+            SuperMarioBros.OBJECT_BIT, SuperMarioBros.GOAL_BIT};
+
+    /**
+     * The baked rectangles of each group of layers.
+     */
+    private final Array<Array<Rectangle>> baked;
+
+    /**
+     * The number of rectangles in each group of layers, before baking.
+     */
+    private final int[] inputCounts;
+
+    /**
+     * Bakes the static geometry of a map.
+     * @param map The map.
+     */
+    public LevelGeometry(Map map) {
+        baked = new Array<Array<Rectangle>>(LAYERS.length);
+        inputCounts = new int[LAYERS.length];
+        for (int i = 0; i < LAYERS.length; i++) {
+            GeometryBaker baker = collect(map, LAYERS[i]);
+            baked.add(baker.bake());
+            inputCounts[i] = baker.getInputCount();
+        }
+    }
+
+    /**
+     * Returns the baked rectangles of a group of layers.
+     * @param group The index of the group in {@link #LAYERS}.
+     * @return The baked rectangles, in map pixels.
+     */
+    public Array<Rectangle> getBaked(int group) {
+        return baked.get(group);
+    }
+
+    /**
+     * Returns the number of rectangles of a group of layers before baking.
+     * @param group The index of the group in {@link #LAYERS}.
+     * @return The number of rectangles on the map.
+     */
+    public int getInputCount(int group) {
+        return inputCounts[group];
+    }
+
+    /**
+     * Adds the rectangles of layers to a new baker.
+     * @param map The map.
+     * @param names The names of the layers.
+     * @return The baker, ready to bake.
+     */
+    public static GeometryBaker collect(Map map, String... names) {
+        GeometryBaker baker = new GeometryBaker();
+        for (String name : names) {
+            final MapLayer layer = map.getLayers().get(name);
+            if (layer == null) {
+                continue;
+            }
+            for(MapObject object : layer.getObjects().getByType(RectangleMapObject.class)){
+                baker.add(((RectangleMapObject) object).getRectangle());
+            }
+        }
+        return baker;
+    }
+}
@@ -0,0 +1,260 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.screens.LevelScreen;
+
+/**
+ * Knows the levels of the game by their id, such as "1-1", and the file each is loaded from.
+ * While a level is played the map of the next level is loaded by the asset manager: the file is
+ * parsed on its loading thread and the textures are uploaded in a small slice of every frame.
+ * Once the map is loaded its static geometry is baked on another thread, so the next level can
+ * start in the frame mario reaches the goal.
+ *
+ * <p>The maps of the last {@link #CACHED_LEVELS} levels stay loaded, the least recently used
+ * one is unloaded when another level is loaded. After the last level the game starts over at
+ * the first.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class LevelManager implements Disposable {
+
+    /**
+     * The number of levels whose maps stay loaded.
+     */
+    public static final int CACHED_LEVELS = 3;
+
+    /**
+     * The time the asset manager may spend loading the next level each frame, in milliseconds.
+     */
+    public static final int PRELOAD_SLICE_MILLIS = 2;
+
+    /**
+     * The tag used for logging.
+     */
+    private static final String TAG = "LevelManager";
+
+    /**
+     * The game the levels are played in.
+     */
+    private final SuperMarioBros game;
+
+    /**
+     * The ids of the levels, in the order they are played.
+     */
+    private final Array<String> ids = new Array<String>();
+
+    /**
+     * The paths of the levels without extension, by id.
+     */
+    private final ObjectMap<String, String> paths = new ObjectMap<String, String>();
+
+    /**
+     * The ids of the levels whose maps are loaded or queued, the least recently used first.
+     */
+    private final Array<String> cached = new Array<String>();
+
+    /**
+     * The static geometry that was baked ahead, by level id.
+     */
+    private final ObjectMap<String, LevelGeometry> geometry = new ObjectMap<String, LevelGeometry>();
+
+    /**
+     * Bakes the static geometry of the next level.
+     */
+    private final AsyncExecutor executor = new AsyncExecutor(1);
+
+    /**
+     * The geometry that is being baked, or null.
+     */
+    private AsyncResult<LevelGeometry> baking;
+
+    /**
+     * The id of the level whose geometry is being baked.
+     */
+    private String bakingLevel;
+
+    /**
+     * The id of the level that is played, or null.
+     */
+    private String current;
+
+    /**
+     * Creates a level manager without levels.
+     * @param game The game the levels are played in.
+     */
+    public LevelManager(SuperMarioBros game) {
+        this.game = game;
+    }
+
+    /**
+     * Adds a level after the levels that were added before.
+     * @param id The id of the level, shown in the HUD.
+     * @param path The path of the level file without extension, for example "worlds/world1-1".
+     */
+    public void add(String id, String path) {
+        ids.add(id);
+        paths.put(id, path);
+    }
+
+    /**
+     * Returns the level the game starts with.
+     * @return The id of the first level.
+     */
+    public String getFirst() {
+        return ids.first();
+    }
+
+    /**
+     * Returns the level after a level.
+     * @param id The id of the level.
+     * @return The id of the next level, the first level after the last.
+     */
+    public String getNext(String id) {
+        return ids.get((ids.indexOf(id, false) + 1) % ids.size);
+    }
+
+    /**
+     * Returns the path of a level.
+     * @param id The id of the level.
+     * @return The path without extension.
+     */
+    public String getPath(String id) {
+        return paths.get(id);
+    }
+
+    /**
+     * Returns the file the map of a level is loaded from, the compiled level if it exists.
+     * @param id The id of the level.
+     * @return The file name for the asset manager.
+     */
+    public String getFileName(String id) {
+        return SuperMarioBros.getLevelFileName(paths.get(id));
+    }
+
+    /**
+     * Queues the map of a level in the asset manager, if it is not loaded or queued already.
+     * The least recently used maps are unloaded when more than {@link #CACHED_LEVELS} are
+     * kept.
+     * @param id The id of the level.
+     */
+    public void load(String id) {
+        if (cached.contains(id, false)) {
+            return;
+        }
+        game.manager.load(getFileName(id), TiledMap.class);
+        cached.add(id);
+        trim();
+    }
+
+    /**
+     * Checks if the map of a level is loaded.
+     * @param id The id of the level.
+     * @return true if the level can be started.
+     */
+    public boolean isLoaded(String id) {
+        return game.manager.isLoaded(getFileName(id), TiledMap.class);
+    }
+
+    /**
+     * Checks if the static geometry of a level was baked ahead and is waiting for the level to
+     * start.
+     * @param id The id of the level.
+     * @return true if the level starts without baking.
+     */
+    public boolean isPrepared(String id) {
+        return geometry.containsKey(id);
+    }
+
+    /**
+     * Creates the screen of a level. Its map must be loaded. Geometry that was baked ahead is
+     * used, otherwise it is baked now.
+     * @param id The id of the level.
+     * @return The new screen.
+     */
+    public LevelScreen start(String id) {
+        load(id);
+        current = id;
+        cached.removeValue(id, false);
+        cached.add(id);
+        if (bakingLevel != null && bakingLevel.equals(id)) {
+            takeBakedGeometry();
+        }
+        final TiledMap map = game.manager.get(getFileName(id), TiledMap.class);
+        return new LevelScreen(game, id, map, geometry.remove(id));
+    }
+
+    /**
+     * Loads the next level in the background. This is called every frame while a level is
+     * played and spends at most {@link #PRELOAD_SLICE_MILLIS} on the render thread.
+     */
+    public void update() {
+        if (current == null) {
+            return;
+        }
+        final String next = getNext(current);
+        if (next.equals(current)) {
+            return;
+        }
+        load(next);
+        if (!game.manager.update(PRELOAD_SLICE_MILLIS)) {
+            return;
+        }
+        if (baking == null && !geometry.containsKey(next) && isLoaded(next)) {
+            final TiledMap map = game.manager.get(getFileName(next), TiledMap.class);
+            bakingLevel = next;
+            baking = executor.submit(new AsyncTask<LevelGeometry>() {
+                @Override
+                public LevelGeometry call() {
+                    return new LevelGeometry(map);
+                }
+            });
+        }
+        if (baking != null && baking.isDone()) {
+            takeBakedGeometry();
+        }
+    }
+
+    /**
+     * Waits for the geometry that is being baked and keeps it for its level.
+     */
+    private void takeBakedGeometry() {
+        geometry.put(bakingLevel, baking.get());
+        Gdx.app.log(TAG, "Prepared level " + bakingLevel);
+        baking = null;
+        bakingLevel = null;
+    }
+
+    /**
+     * Unloads the least recently used maps until at most {@link #CACHED_LEVELS} are kept. The
+     * level that is played and the next level are kept.
+     */
+    private void trim() {
+        final String next = current == null ? null : getNext(current);
+        for (int i = 0; i < cached.size && cached.size > CACHED_LEVELS; i++) {
+            final String id = cached.get(i);
+            if (id.equals(current) || id.equals(next) || id.equals(bakingLevel)) {
+                continue;
+            }
+            game.manager.unload(getFileName(id));
+            geometry.remove(id);
+            cached.removeIndex(i--);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        executor.dispose();
+    }
+}
@@ -0,0 +1,303 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.BaseTmxMapLoader;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.XmlReader;
+import com.mariobros.screens.LevelScreen;
+
+import java.io.IOException;
+
+/**
+ * Applies the changes of the TMX file of a level to the level while it is played, so a level can
+ * be edited without restarting the game. Only what changed is rebuilt: the tile cells that differ
+ * from the previous version of the file, and the objects whose rectangle was added, moved or
+ * removed, found by their object id. Mario and the rest of the level keep their state.
+ *
+ * <p>The tiles are compared with the previous version of the file and not with the live map, so
+ * blocks that were hit while playing stay hit. The objects are compared with the live map. A
+ * tile can only be placed if the map has it; with the packed atlas these are the tiles the levels
+ * used when the atlas was packed. Layers that are not in the live map are skipped.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class LevelReloader {
+
+    /**
+     * The tag used for logging.
+     */
+    private static final String TAG = "LevelReloader";
+
+    /**
+     * The parser for the TMX file.
+     */
+    private final XmlReader xml = new XmlReader();
+
+    /**
+     * The level that is changed.
+     */
+    private final LevelScreen screen;
+
+    /**
+     * The TMX file of the level.
+     */
+    private final FileHandle file;
+
+    /**
+     * The gids of the tile layers in the previous version of the file, by layer name.
+     */
+    private ObjectMap<String, int[]> previousTiles;
+
+    /**
+     * The rectangles of the objects of a layer in the file, by object id.
+     */
+    private final IntMap<Rectangle> edited = new IntMap<Rectangle>();
+
+    /**
+     * The number of cells that changed in the last reload.
+     */
+    private int changedCells;
+
+    /**
+     * The number of cells in the last reload whose tile is not in the map.
+     */
+    private int missingTiles;
+
+    /**
+     * The number of objects added in the last reload.
+     */
+    private int addedObjects;
+
+    /**
+     * The number of objects moved in the last reload.
+     */
+    private int movedObjects;
+
+    /**
+     * The number of objects removed in the last reload.
+     */
+    private int removedObjects;
+
+    /**
+     * The number of static fixtures removed and added in the last reload.
+     */
+    private int changedFixtures;
+
+    /**
+     * Creates a reloader. The file is read right away, as the version the first change is
+     * compared with.
+     * @param screen The level that is changed.
+     * @param file The TMX file of the level.
+     * @throws GdxRuntimeException If the file could not be read.
+     */
+    public LevelReloader(LevelScreen screen, FileHandle file) {
+        this.screen = screen;
+        this.file = file;
+        try {
+            previousTiles = readTiles(xml.parse(file));
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Can not read level " + file, e);
+        }
+    }
+
+    /**
+     * Reads the file again and applies what changed to the level. A file that can not be read,
+     * for example because the editor is still writing it, is reported and skipped. This may not
+     * be called while the world is stepping.
+     * @param changedAt The time the change of the file was seen, from {@link TimeUtils#nanoTime()}.
+     */
+    public void reload(long changedAt) {
+        final long start = TimeUtils.nanoTime();
+        final XmlReader.Element root;
+        final ObjectMap<String, int[]> tiles;
+        try {
+            root = xml.parse(file);
+            tiles = readTiles(root);
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Can not read " + file, e);
+            return;
+        } catch (SerializationException e) {
+            Gdx.app.error(TAG, "Can not read " + file, e);
+            return;
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error(TAG, "Can not read " + file, e);
+            return;
+        }
+        changedCells = 0;
+        missingTiles = 0;
+        addedObjects = 0;
+        movedObjects = 0;
+        removedObjects = 0;
+        changedFixtures = 0;
+        final TiledMap map = screen.getMap();
+        for (ObjectMap.Entry<String, int[]> layer : tiles) {
+            patchTiles(map, layer.key, layer.value);
+        }
+        previousTiles = tiles;
+        final float mapHeight = root.getIntAttribute("height") * root.getIntAttribute("tileheight");
+        for (XmlReader.Element group : root.getChildrenByName("objectgroup")) {
+            patchObjects(map, group, mapHeight);
+        }
+        final long end = TimeUtils.nanoTime();
+        Gdx.app.log(TAG, "Reloaded " + file.name() + " in " + (end - start) / 1000000 + " ms, "
+                + (end - changedAt) / 1000000 + " ms after the change: " + changedCells + " cells, "
+                + addedObjects + " objects added, " + movedObjects + " moved, " + removedObjects + " removed, "
+                + changedFixtures + " static fixtures rebuilt");
+        if (missingTiles > 0) {
+            Gdx.app.error(TAG, missingTiles + " cells use tiles the map does not have, pack the atlas again");
+        }
+    }
+
+    /**
+     * Reads the gids of the tile layers.
+     * @param root The root element of the TMX file.
+     * @return The gids with their flip flags, top row first, by layer name.
+     */
+    private static ObjectMap<String, int[]> readTiles(XmlReader.Element root) {
+        final int width = root.getIntAttribute("width");
+        final int height = root.getIntAttribute("height");
+        ObjectMap<String, int[]> tiles = new ObjectMap<String, int[]>();
+        for (XmlReader.Element layer : root.getChildrenByName("layer")) {
+            tiles.put(layer.getAttribute("name", ""), BaseTmxMapLoader.getTileIds(layer, width, height));
+        }
+        return tiles;
+    }
+
+    /**
+     * Changes the cells of a tile layer whose gid differs from the previous version of the file.
+     * Cells that exist are changed in place, because interactive objects keep their cell.
+     * @param map The live map.
+     * @param name The name of the layer.
+     * @param gids The gids of the layer in the file.
+     */
+    private void patchTiles(TiledMap map, String name, int[] gids) {
+        final MapLayer mapLayer = map.getLayers().get(name);
+        final int[] previous = previousTiles.get(name);
+        if (!(mapLayer instanceof TiledMapTileLayer) || previous == null || previous.length != gids.length) {
+            Gdx.app.error(TAG, "Tile layer " + name + " is new or changed size, restart to load it");
+            return;
+        }
+        final TiledMapTileLayer layer = (TiledMapTileLayer) mapLayer;
+        final int width = layer.getWidth();
+        final int height = layer.getHeight();
+        for (int i = 0; i < gids.length; i++) {
+            final int gid = gids[i];
+            if (gid == previous[i]) {
+                continue;
+            }
+            final int x = i % width;
+            final int y = height - 1 - i / width;
+            TiledMapTileLayer.Cell cell = layer.getCell(x, y);
+            TiledMapTile tile = null;
+            if ((gid & ~BinaryMapLoader.FLAG_MASK) != 0) {
+                tile = map.getTileSets().getTile(gid & ~BinaryMapLoader.FLAG_MASK);
+                if (tile == null) {
+                    missingTiles++;
+                    continue;
+                }
+            }
+            final TiledMapTileLayer.Cell flipped = BinaryMapLoader.createCell(gid);
+            if (cell == null) {
+                cell = flipped;
+                layer.setCell(x, y, cell);
+            } else {
+                cell.setFlipHorizontally(flipped.getFlipHorizontally());
+                cell.setFlipVertically(flipped.getFlipVertically());
+                cell.setRotation(flipped.getRotation());
+            }
+            cell.setTile(tile);
+            screen.getMapRenderer().invalidate(x);
+            changedCells++;
+        }
+    }
+
+    /**
+     * Changes the objects of a layer that were added, moved or removed in the file, and has the
+     * world creator change their bodies. Objects that are not rectangles are skipped, like the
+     * level compiler does.
+     * @param map The live map.
+     * @param group The object layer element.
+     * @param mapHeight The height of the map in pixels, used to make y point up.
+     */
+    private void patchObjects(TiledMap map, XmlReader.Element group, float mapHeight) {
+        final String name = group.getAttribute("name", "");
+        final MapLayer layer = map.getLayers().get(name);
+        if (layer == null) {
+            Gdx.app.error(TAG, "Object layer " + name + " is new, restart to load it");
+            return;
+        }
+        edited.clear();
+        for (XmlReader.Element object : group.getChildrenByName("object")) {
+            final int id = object.getIntAttribute("id", 0);
+            if (id != 0 && isRectangle(object)) {
+                final float height = object.getFloatAttribute("height", 0);
+                edited.put(id, new Rectangle(object.getFloatAttribute("x", 0),
+                        mapHeight - object.getFloatAttribute("y", 0) - height,
+                        object.getFloatAttribute("width", 0), height));
+            }
+        }
+        final Box2DWorldCreator creator = screen.getWorldCreator();
+        final MapObjects objects = layer.getObjects();
+        boolean changed = false;
+        for (int i = objects.getCount() - 1; i >= 0; i--) {
+            final MapObject object = objects.get(i);
+            final Integer id = object.getProperties().get("id", Integer.class);
+            if (!(object instanceof RectangleMapObject) || id == null) {
+                continue;
+            }
+            final Rectangle bounds = ((RectangleMapObject) object).getRectangle();
+            final Rectangle now = edited.remove(id);
+            if (now == null) {
+                creator.removeObject(id);
+                objects.remove(i);
+                removedObjects++;
+                changed = true;
+            } else if (!now.equals(bounds)) {
+                creator.removeObject(id);
+                bounds.set(now);
+                creator.addObject(name, object);
+                movedObjects++;
+                changed = true;
+            }
+        }
+        for (IntMap.Entry<Rectangle> entry : edited) {
+            final Rectangle bounds = entry.value;
+            final RectangleMapObject object = new RectangleMapObject(bounds.x, bounds.y, bounds.width, bounds.height);
+            object.getProperties().put("id", entry.key);
+            objects.add(object);
+            creator.addObject(name, object);
+            addedObjects++;
+            changed = true;
+        }
+        if (changed && creator.isStaticLayer(name)) {
+            changedFixtures += creator.rebakeLayer(name);
+        }
+    }
+
+    /**
+     * Checks if an object is a plain rectangle.
+     * @param object The object element.
+     * @return true if the object is a rectangle.
+     */
+    private static boolean isRectangle(XmlReader.Element object) {
+        return object.getAttribute("gid", null) == null && (object.getChildCount() == 0
+                || object.getChildCount() == 1 && object.getChild(0).getName().equals("properties"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Finds the sprites of the game. The asset pipeline packs the sprite sheets, the used block and
+ * the tiles the levels use into one atlas, so drawing a frame hardly switches textures. When the
+ * packed atlas exists it is used, otherwise the sprites come from the separate sheets, in the
+ * same way the compiled levels are preferred over the TMX files.
+ *
+ * <p>In the packed atlas the region of a sheet is named after the sheet and the region, for
+ * example {@code tileset/goomba}. The tiles of a tileset are named {@code tiles/} followed by
+ * the name of the tileset and have the local id of the tile as index.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public final class PackedAtlas {
+
+    /**
+     * The packed atlas.
+     */
+    public static final String ATLAS = "packed/game.atlas";
+
+    /**
+     * The sheet with the sprites of mario.
+     */
+    public static final String MARIO_SHEET = "mario-sheet-32x32";
+
+    /**
+     * The sheet with the sprites of the items.
+     */
+    public static final String ITEMS_SHEET = "items";
+
+    /**
+     * The sheet with the sprites of the enemies and level objects.
+     */
+    public static final String TILESET_SHEET = "tileset";
+
+    /**
+     * The sheets that are packed, each has an atlas with the extension {@link #SHEET_EXTENSION}.
+     */
+    public static final String[] SHEETS = {MARIO_SHEET, ITEMS_SHEET, TILESET_SHEET};
+
+    /**
+     * The extension of the atlases of the sheets.
+     */
+    public static final String SHEET_EXTENSION = ".txt";
+
+    /**
+     * The image of a used item block, without extension.
+     */
+    public static final String USED_BLOCK = "used_block_16x16";
+
+    /**
+     * The extension of the image of the used block.
+     */
+    public static final String USED_BLOCK_EXTENSION = ".png";
+
+    /**
+     * The start of the names of the tile regions in the packed atlas.
+     */
+    public static final String TILES_PREFIX = "tiles/";
+
+    private PackedAtlas() {
+
+    }
+
+    /**
+     * Checks if the asset pipeline has packed the atlas.
+     * @return true if the packed atlas exists.
+     */
+    public static boolean isPacked() {
+        return Gdx.files.internal(ATLAS).exists();
+    }
+
+    /**
+     * Queues the sprites for loading: the packed atlas if it exists, otherwise the sheets and
+     * the image of the used block. The animation sets are loaded after them.
+     * @param manager The asset manager to load the sprites with.
+     */
+    public static void load(AssetManager manager) {
+        for (AssetDescriptor atlas : getAtlases()) {
+            manager.load(atlas);
+        }
+        if (!isPacked()) {
+            manager.load(USED_BLOCK + USED_BLOCK_EXTENSION, Texture.class);
+        }
+        manager.load(AnimationSets.FILE, AnimationSets.class);
+    }
+
+    /**
+     * Returns the atlases the sheets are in: the packed atlas if it exists, otherwise the
+     * atlas of every sheet.
+     * @return The atlases to load.
+     */
+    public static Array<AssetDescriptor> getAtlases() {
+        Array<AssetDescriptor> atlases = new Array<AssetDescriptor>(SHEETS.length);
+        if (isPacked()) {
+            atlases.add(new AssetDescriptor<TextureAtlas>(ATLAS, TextureAtlas.class));
+        } else {
+            for (String sheet : SHEETS) {
+                atlases.add(new AssetDescriptor<TextureAtlas>(sheet + SHEET_EXTENSION, TextureAtlas.class));
+            }
+        }
+        return atlases;
+    }
+
+    /**
+     * Finds a region of a sheet. This searches the atlas, so it should be done while loading.
+     * @param manager The asset manager the sprites are loaded in.
+     * @param sheet The sheet, for example {@link #MARIO_SHEET}.
+     * @param name The name of the region in the sheet.
+     * @return The region.
+     * @throws GdxRuntimeException If the sheet has no region with the name.
+     */
+    public static TextureRegion findRegion(AssetManager manager, String sheet, String name) {
+        TextureRegion region;
+        if (manager.isLoaded(ATLAS, TextureAtlas.class)) {
+            region = manager.get(ATLAS, TextureAtlas.class).findRegion(sheet + "/" + name);
+        } else {
+            region = manager.get(sheet + SHEET_EXTENSION, TextureAtlas.class).findRegion(name);
+        }
+        if (region == null) {
+            throw new GdxRuntimeException("No region " + name + " in sheet " + sheet);
+        }
+        return region;
+    }
+
+    /**
+     * Returns the image of a used item block.
+     * @param manager The asset manager the sprites are loaded in.
+     * @return The used block.
+     */
+    public static TextureRegion getUsedBlock(AssetManager manager) {
+        if (manager.isLoaded(ATLAS, TextureAtlas.class)) {
+            return manager.get(ATLAS, TextureAtlas.class).findRegion(USED_BLOCK);
+        }
+        return new TextureRegion(manager.get(USED_BLOCK + USED_BLOCK_EXTENSION, Texture.class));
+    }
+}
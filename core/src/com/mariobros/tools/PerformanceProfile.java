@@ -0,0 +1,191 @@
+package com.mariobros.tools;
+
+/**
+ * Named sets of settings that trade quality for speed, so the game can be tuned per device
+ * without rebuilding it. The solver iterations and debug drawing are applied by the level and
+ * can be switched at any time. The frame rate, vsync and back buffer settings are applied by
+ * the launcher; the back buffer can only be set when the game starts.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public enum PerformanceProfile {
+
+    /**
+     * For slow devices: fewer solver iterations, 30 frames per second and a minimal back buffer.
+     */
+    LOW(4, 1, false, false, true, 30, 10, 0, 0),
+
+    /**
+     * The default: the solver iterations Box2D recommends and 60 frames per second.
+     */
+    BALANCED(6, 2, false, false, true, 60, 15, 0, 16),
+
+    /**
+     * For fast devices: more solver iterations, a frame rate limited by vsync only and
+     * multisampling.
+     */
+    HIGH(8, 3, false, false, true, 0, 30, 4, 16),
+
+    /**
+     * For development: balanced settings with the Box2D debug lines and the frame profiler.
+     */
+    DEBUG(6, 2, true, true, true, 60, 15, 0, 16);
+
+    /**
+     * The number of velocity iterations per physics step.
+     */
+    private final int velocityIterations;
+
+    /**
+     * The number of position iterations per physics step.
+     */
+    private final int positionIterations;
+
+    /**
+     * true if the Box2D debug lines are drawn.
+     */
+    private final boolean debugRendering;
+
+    /**
+     * true if the frame profiler measures every frame.
+     */
+    private final boolean profiling;
+
+    /**
+     * true if the buffer swap waits for the vertical sync.
+     */
+    private final boolean vSync;
+
+    /**
+     * The maximal frames per second while the game has focus, or 0 for no limit.
+     */
+    private final int foregroundFps;
+
+    /**
+     * The maximal frames per second while the game does not have focus, or 0 for no limit.
+     */
+    private final int backgroundFps;
+
+    /**
+     * The number of samples for multisampling of the back buffer, or 0 for none.
+     */
+    private final int samples;
+
+    /**
+     * The number of bits of the depth buffer, or 0 for none.
+     */
+    private final int depthBits;
+
+    PerformanceProfile(int velocityIterations, int positionIterations, boolean debugRendering, boolean profiling,
+                       boolean vSync, int foregroundFps, int backgroundFps, int samples, int depthBits) {
+        this.velocityIterations = velocityIterations;
+        this.positionIterations = positionIterations;
+        this.debugRendering = debugRendering;
+        this.profiling = profiling;
+        this.vSync = vSync;
+        this.foregroundFps = foregroundFps;
+        this.backgroundFps = backgroundFps;
+        this.samples = samples;
+        this.depthBits = depthBits;
+    }
+
+    /**
+     * Finds a profile by its name, ignoring case.
+     * @param name The name of the profile, for example "low".
+     * @return The profile.
+     * @throws IllegalArgumentException If there is no profile with the name.
+     */
+    public static PerformanceProfile forName(String name) {
+        for (PerformanceProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name.trim())) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown performance profile " + name);
+    }
+
+    /**
+     * Returns the profile after this one, used to cycle through the profiles.
+     * @return The next profile, after the last profile this is the first.
+     */
+    public PerformanceProfile next() {
+        final PerformanceProfile[] profiles = values();
+        return profiles[(ordinal() + 1) % profiles.length];
+    }
+
+    /**
+     * Returns the number of velocity iterations per physics step.
+     * @return The velocity iterations.
+     */
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    /**
+     * Returns the number of position iterations per physics step.
+     * @return The position iterations.
+     */
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    /**
+     * Checks if the Box2D debug lines are drawn.
+     * @return true if the debug lines are drawn.
+     */
+    public boolean isDebugRendering() {
+        return debugRendering;
+    }
+
+    /**
+     * Checks if the frame profiler measures every frame.
+     * @return true if frames are profiled.
+     */
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * Checks if the buffer swap waits for the vertical sync.
+     * @return true if vsync is enabled.
+     */
+    public boolean isVSync() {
+        return vSync;
+    }
+
+    /**
+     * Returns the maximal frames per second while the game has focus.
+     * @return The frame rate limit, or 0 for no limit.
+     */
+    public int getForegroundFps() {
+        return foregroundFps;
+    }
+
+    /**
+     * Returns the maximal frames per second while the game does not have focus.
+     * @return The frame rate limit, or 0 for no limit.
+     */
+    public int getBackgroundFps() {
+        return backgroundFps;
+    }
+
+    /**
+     * Returns the number of samples for multisampling of the back buffer.
+     * @return The number of samples, or 0 for none.
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Returns the number of bits of the depth buffer.
+     * @return The depth bits, or 0 for no depth buffer.
+     */
+    public int getDepthBits() {
+        return depthBits;
+    }
+}
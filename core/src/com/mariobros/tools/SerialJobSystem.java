@@ -0,0 +1,28 @@
+package com.mariobros.tools;
+
+import com.mariobros.interfaces.JobSystem;
+
+/**
+ * Runs jobs on the calling thread, as one range. This is the job system of the game unless the
+ * launcher gives it another.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class SerialJobSystem implements JobSystem {
+
+    @Override
+    public void run(int count, Job job) {
+        if (count > 0) {
+            job.run(0, count);
+        }
+    }
+
+    @Override
+    public int getThreads() {
+        return 1;
+    }
+}
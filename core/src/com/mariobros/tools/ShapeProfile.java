@@ -0,0 +1,79 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * The fixtures of a body, as templates that are built once and shared by every body that uses
+ * them. Applying a profile replaces the fixtures of a body that already exists, so a body can
+ * change its shape, for example when mario gets a powerup, without being created again. The
+ * body keeps its position and its speed.
+ *
+ * <p>The fixtures of a body can not be changed while the world is stepping, so a profile may
+ * only be applied between steps.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class ShapeProfile implements Disposable {
+
+    /**
+     * The templates of the fixtures.
+     */
+    private final Array<FixtureDef> fixtures = new Array<FixtureDef>(4);
+
+    /**
+     * Holds the speed of a body while its fixtures are replaced.
+     */
+    private final Vector2 velocity = new Vector2();
+
+    /**
+     * Adds a fixture to the profile. The profile owns the shape and disposes it.
+     * @param shape The shape of the fixture.
+     * @param category The catagory bit of the fixture.
+     * @param maskBits The catagories the fixture collides with.
+     * @return The template of the fixture, to set the other properties of the fixture.
+     */
+    public FixtureDef add(Shape shape, short category, int maskBits) {
+        FixtureDef fdef = new FixtureDef();
+        fdef.shape = shape;
+        fdef.filter.categoryBits = category;
+        fdef.filter.maskBits = (short) maskBits;
+        fixtures.add(fdef);
+        return fdef;
+    }
+
+    /**
+     * Replaces the fixtures of a body by the fixtures of this profile. The body keeps its speed.
+     * This may not be called while the world is stepping.
+     * @param body The body.
+     * @param userData The user data of the new fixtures.
+     */
+    public void apply(Body body, Object userData) {
+        velocity.set(body.getLinearVelocity());
+        final Array<Fixture> old = body.getFixtureList();
+        while (old.size > 0) {
+            body.destroyFixture(old.peek());
+        }
+        for (int i = 0; i < fixtures.size; i++) {
+            body.createFixture(fixtures.get(i)).setUserData(userData);
+        }
+        body.setLinearVelocity(velocity);
+    }
+
+    @Override
+    public void dispose() {
+        for (int i = 0; i < fixtures.size; i++) {
+            fixtures.get(i).shape.dispose();
+        }
+        fixtures.clear();
+    }
+}
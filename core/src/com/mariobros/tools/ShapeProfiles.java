@@ -0,0 +1,127 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.utils.Disposable;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.sprites.hero.Mario;
+
+/**
+ * The shape profiles of mario, one for every powerup, and of every type of enemy. They are built
+ * once for the game and shared by all levels.
+ *
+ * <p>The origin of every profile of mario is the center of his lower 16 pixels, so his feet stay
+ * where they are when his powerup changes.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class ShapeProfiles implements Disposable {
+
+    /**
+     * The catagories mario collides with.
+     */
+    private static final int MARIO_MASK = SuperMarioBros.GROUND_BIT | SuperMarioBros.OBJECT_BIT
+            | SuperMarioBros.ENEMY_BIT | SuperMarioBros.BLOCK_BIT | SuperMarioBros.ENEMY_WEAKNESS_BIT
+            | SuperMarioBros.GOAL_BIT;
+
+    /**
+     * The catagories goombas collide with.
+     */
+    private static final int GOOMBA_MASK = SuperMarioBros.GROUND_BIT | SuperMarioBros.ENEMY_BIT
+            | SuperMarioBros.MARIO_BIT | SuperMarioBros.OBJECT_BIT | SuperMarioBros.BLOCK_BIT;
+
+    /**
+     * The profiles of mario, in the order of the powerups.
+     */
+    private final ShapeProfile[] mario;
+
+    /**
+     * The profile of goombas.
+     */
+    private final ShapeProfile goomba;
+
+    /**
+     * Builds the profiles. Box2D must be initialized.
+     */
+    public ShapeProfiles() {
+        mario = new ShapeProfile[Mario.PowerUp.values().length];
+        mario[Mario.PowerUp.NORMAL.ordinal()] = createMario(1);
+        mario[Mario.PowerUp.SUPER.ordinal()] = createMario(2);
+        goomba = createGoomba();
+    }
+
+    /**
+     * Builds a profile of mario: a circle for every 16 pixels of his height, with a sensor on
+     * top of his head.
+     * @param size The height of mario in tiles.
+     * @return The profile.
+     */
+    private static ShapeProfile createMario(int size) {
+        ShapeProfile profile = new ShapeProfile();
+        for (int i = 0; i < size; i++) {
+            CircleShape shape = new CircleShape();
+            shape.setRadius(7 / SuperMarioBros.PPM);
+            shape.setPosition(new Vector2(0, i * 16 / SuperMarioBros.PPM));
+            profile.add(shape, SuperMarioBros.MARIO_BIT, MARIO_MASK);
+        }
+        final float top = (7 + (size - 1) * 16) / SuperMarioBros.PPM;
+        EdgeShape head = new EdgeShape();
+        head.set(new Vector2(-2 / SuperMarioBros.PPM, top), new Vector2(2 / SuperMarioBros.PPM, top));
+        profile.add(head, SuperMarioBros.MARIO_HEAD_BIT, MARIO_MASK).isSensor = true;
+        return profile;
+    }
+
+    /**
+     * Builds the profile of goombas: a circle with a bouncy head on top.
+     * @return The profile.
+     */
+    private static ShapeProfile createGoomba() {
+        ShapeProfile profile = new ShapeProfile();
+        CircleShape shape = new CircleShape();
+        shape.setRadius(7 / SuperMarioBros.PPM);
+        profile.add(shape, SuperMarioBros.ENEMY_BIT, GOOMBA_MASK);
+
+        PolygonShape head = new PolygonShape();
+        Vector2[] vertices = new Vector2[4];
+        vertices[0] = new Vector2(-6, 9).scl(1 / SuperMarioBros.PPM);
+        vertices[1] = new Vector2(6, 9).scl(1 / SuperMarioBros.PPM);
+        vertices[2] = new Vector2(3, 3).scl(1 / SuperMarioBros.PPM);
+        vertices[3] = new Vector2(-3, 3).scl(1 / SuperMarioBros.PPM);
+        head.set(vertices);
+        FixtureDef fdef = profile.add(head, SuperMarioBros.ENEMY_WEAKNESS_BIT, GOOMBA_MASK);
+        fdef.restitution = 0.5f;
+        return profile;
+    }
+
+    /**
+     * Returns the profile of mario with a powerup.
+     * @param powerup The powerup.
+     * @return The profile.
+     */
+    public ShapeProfile getMario(Mario.PowerUp powerup) {
+        return mario[powerup.ordinal()];
+    }
+
+    /**
+     * Returns the profile of goombas.
+     * @return The profile.
+     */
+    public ShapeProfile getGoomba() {
+        return goomba;
+    }
+
+    @Override
+    public void dispose() {
+        for (ShapeProfile profile : mario) {
+            profile.dispose();
+        }
+        goomba.dispose();
+    }
+}
@@ -0,0 +1,91 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Index of things on the map by their horizontal position. The levels are long and low, so the
+ * map is cut into columns of equal width and every thing is stored in each column it overlaps.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class SpatialIndex<T> {
+
+    /**
+     * The width of a single column, in map pixels.
+     */
+    private final float columnWidth;
+
+    /**
+     * The things in each column.
+     */
+    private final Array<Array<T>> columns;
+
+    /**
+     * Creates a new index.
+     * @param mapWidth The width of the map, in map pixels.
+     * @param columnWidth The width of a single column, in map pixels.
+     */
+    public SpatialIndex(float mapWidth, float columnWidth) {
+        this.columnWidth = columnWidth;
+        final int count = Math.max(1, (int) Math.ceil(mapWidth / columnWidth));
+        columns = new Array<Array<T>>(count);
+        for (int i = 0; i < count; i++) {
+            columns.add(new Array<T>(false, 8));
+        }
+    }
+
+    /**
+     * Adds a thing to the index.
+     * @param item The thing to add.
+     * @param left The left side of the thing, in map pixels.
+     * @param right The right side of the thing, in map pixels.
+     */
+    public void insert(T item, float left, float right) {
+        final int last = column(right);
+        for (int i = column(left); i <= last; i++) {
+            columns.get(i).add(item);
+        }
+    }
+
+    /**
+     * Removes a thing from the index. The sides must be the ones it was added with.
+     * @param item The thing to remove.
+     * @param left The left side of the thing, in map pixels.
+     * @param right The right side of the thing, in map pixels.
+     */
+    public void remove(T item, float left, float right) {
+        final int last = column(right);
+        for (int i = column(left); i <= last; i++) {
+            columns.get(i).removeValue(item, true);
+        }
+    }
+
+    /**
+     * Adds all things in the columns between left and right to the result. Things that span
+     * multiple columns are added once per column, and things near the edges may lie just
+     * outside the range.
+     * @param left The left side, in map pixels.
+     * @param right The right side, in map pixels.
+     * @param result The array to add the things to.
+     */
+    public void query(float left, float right, Array<T> result) {
+        final int last = column(right);
+        for (int i = column(left); i <= last; i++) {
+            result.addAll(columns.get(i));
+        }
+    }
+
+    /**
+     * Returns the column a position falls in, clamped to the map.
+     * @param x The position, in map pixels.
+     * @return The index of the column.
+     */
+    private int column(float x) {
+        final int column = (int) (x / columnWidth);
+        return Math.max(0, Math.min(columns.size - 1, column));
+    }
+}
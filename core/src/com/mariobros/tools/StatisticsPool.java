@@ -0,0 +1,84 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * A pool that counts how often an object could be reused. An obtain is a hit if there was a
+ * free object in the pool and a miss if a new object had to be created.
+ *
+ * @param <T> The type of the pooled objects.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public abstract class StatisticsPool<T> extends Pool<T> {
+
+    /**
+     * The name of the pool, used when the statistics are logged.
+     */
+    private final String name;
+
+    /**
+     * The number of obtains that reused a free object.
+     */
+    private int hits;
+
+    /**
+     * The number of obtains that created a new object.
+     */
+    private int misses;
+
+    /**
+     * Creates a new pool without a maximum size.
+     * @param name The name of the pool.
+     */
+    public StatisticsPool(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public T obtain() {
+        if (getFree() > 0) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return super.obtain();
+    }
+
+    /**
+     * Returns the number of obtains that reused a free object.
+     * @return The number of hits.
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of obtains that created a new object.
+     * @return The number of misses.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Sets the hits and misses back to 0.
+     */
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Describes the use of the pool.
+     * @return The statistics, for example "Goombas: 12 hits, 3 misses, 2 free, peak 3".
+     */
+    @Override
+    public String toString() {
+        return name + ": " + hits + " hits, " + misses + " misses, " + getFree() + " free, peak " + peak;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mariobros.tools;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+
+/**
+ * The tiles that replace the tiles of the map while the level is played, such as the tile of
+ * a used item block. They are resolved once per level from sprites that are already in the
+ * asset manager, so changing a tile never creates a texture.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+
+public class TileRegistry {
+
+    /**
+     * The name of the layer that holds the tiles of the blocks.
+     */
+    public static final String BLOCK_LAYER = "Graphics";
+
+    /**
+     * The layer that holds the tiles of the blocks.
+     */
+    private final TiledMapTileLayer blockLayer;
+
+    /**
+     * The tile of a used item block.
+     */
+    private final TiledMapTile usedBlock;
+
+    /**
+     * Resolves the tiles for a level.
+     * @param manager The asset manager the textures are loaded in.
+     * @param map The map of the level.
+     */
+    public TileRegistry(AssetManager manager, TiledMap map) {
+        blockLayer = (TiledMapTileLayer) map.getLayers().get(BLOCK_LAYER);
+        usedBlock = new StaticTiledMapTile(PackedAtlas.getUsedBlock(manager));
+    }
+
+    /**
+     * Returns the layer that holds the tiles of the blocks.
+     * @return The block layer.
+     */
+    public TiledMapTileLayer getBlockLayer() {
+        return blockLayer;
+    }
+
+    /**
+     * Returns the tile of an item block that has been used.
+     * @return The used block tile.
+     */
+    public TiledMapTile getUsedBlock() {
+        return usedBlock;
+    }
+
+    /**
+     * Returns the tile of a brick that has been broken. Broken bricks leave no tile behind.
+     * @return The broken brick tile, which is null.
+     */
+    public TiledMapTile getBrokenBrick() {
+        return null;
+    }
+}
@@ -1,12 +1,133 @@
 package com.mariobros.desktop;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
 import com.mariobros.SuperMarioBros;
+import com.mariobros.interfaces.ProfileListener;
+import com.mariobros.tools.PerformanceProfile;
+import com.mariobros.tools.SerialJobSystem;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Launches the game in a window. With {@code --record <file>} the buttons of every physics
+ * step are recorded to the file, which can be replayed by the headless launcher. The
+ * performance profile is given with {@code --profile <name>}, otherwise it is read from the
+ * {@code profile} property of the settings file, if there is one. With {@code --watch <tmx>}
+ * the changes of the TMX file of the level are applied while the level is played. The work of
+ * the enemies is spread over a thread per core, or over the number of threads given with
+ * {@code --threads <n>}. With one thread, or 0, the enemies run on the render thread.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
 public class DesktopLauncher {
+
+	/**
+	 * The file the settings are read from, relative to the working directory.
+	 */
+	public static final String SETTINGS_FILE = "performance.properties";
+
+	/**
+	 * The arguments the launcher accepts.
+	 */
+	private static final String USAGE = "Usage: [--record <file>] [--profile <name>] [--watch <tmx>] [--threads <n>]";
+
 	public static void main (String[] arg) {
-		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
-		new LwjglApplication(new SuperMarioBros(), config);
+		SuperMarioBros game = new SuperMarioBros();
+		PerformanceProfile profile = null;
+		File watched = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < arg.length; i += 2) {
+			if (i + 1 == arg.length) {
+				throw new IllegalArgumentException(arg[i] + " needs a value. " + USAGE);
+			}
+			if ("--record".equals(arg[i])) {
+				game.setRecordingFile(new FileHandle(arg[i + 1]));
+			} else if ("--profile".equals(arg[i])) {
+				profile = PerformanceProfile.forName(arg[i + 1]);
+			} else if ("--watch".equals(arg[i])) {
+				watched = new File(arg[i + 1]);
+				game.setReloadFile(new FileHandle(watched));
+			} else if ("--threads".equals(arg[i])) {
+				threads = Integer.parseInt(arg[i + 1]);
+				if (threads < 0) {
+					throw new IllegalArgumentException("--threads must be 0 or more but was " + threads);
+				}
+			} else {
+				throw new IllegalArgumentException("Unknown argument " + arg[i] + ". " + USAGE);
+			}
+		}
+		if (profile == null) {
+			profile = readProfile(new File(SETTINGS_FILE));
+		}
+		final LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
+		config.samples = profile.getSamples();
+		config.depth = profile.getDepthBits();
+		applyFrameSettings(config, profile);
+		game.setPerformanceProfile(profile);
+		// A pool of one thread only adds the cost of handing the work over.
+		game.setJobSystem(threads <= 1 ? new SerialJobSystem() : new ForkJoinJobSystem(threads));
+		game.setProfileListener(new ProfileListener() {
+			@Override
+			public void profileChanged(PerformanceProfile profile) {
+				applyFrameSettings(config, profile);
+				Gdx.graphics.setVSync(profile.isVSync());
+			}
+		});
+		new LwjglApplication(game, config);
+		if (watched != null) {
+			new LevelWatcher(game, watched).start();
+		}
+	}
+
+	/**
+	 * Applies the frame rate and vsync of a profile. The application reads the frame rate
+	 * limits from the configuration every frame, so this also works while the game runs.
+	 * @param config The configuration of the application.
+	 * @param profile The profile to apply.
+	 */
+	private static void applyFrameSettings(LwjglApplicationConfiguration config, PerformanceProfile profile) {
+		config.vSyncEnabled = profile.isVSync();
+		config.foregroundFPS = profile.getForegroundFps();
+		config.backgroundFPS = profile.getBackgroundFps();
+	}
+
+	/**
+	 * Reads the performance profile from a settings file.
+	 * @param file The settings file.
+	 * @return The profile in the file, or the balanced profile if the file or the property
+	 * does not exist.
+	 */
+	private static PerformanceProfile readProfile(File file) {
+		if (!file.exists()) {
+			return PerformanceProfile.BALANCED;
+		}
+		Properties settings = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			settings.load(in);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read " + file, e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// Nothing left to do.
+				}
+			}
+		}
+		String name = settings.getProperty("profile");
+		return name == null ? PerformanceProfile.BALANCED : PerformanceProfile.forName(name);
 	}
 }
@@ -0,0 +1,143 @@
+package com.mariobros.desktop;
+
+import com.mariobros.interfaces.JobSystem;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Spreads jobs over the threads of a fork-join pool. The items are cut into a few ranges per
+ * thread, which are handed to the pool, except the first, which the calling thread runs itself.
+ * Threads that finish early take the ranges that are left. The calling thread then waits until
+ * every range is done.
+ *
+ * <p>The tasks are created once and reinitialized for every job, so running a job does not
+ * allocate. Jobs must therefore be run from one thread at a time.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class ForkJoinJobSystem implements JobSystem {
+
+	/**
+	 * The smallest number of items that is worth a range of its own.
+	 */
+	public static final int MIN_RANGE = 16;
+
+	/**
+	 * The number of ranges per thread, so threads that finish early can take over work.
+	 */
+	private static final int RANGES_PER_THREAD = 4;
+
+	/**
+	 * The pool the jobs run on.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The tasks of the ranges, reused for every job.
+	 */
+	private final RangeTask[] ranges;
+
+	/**
+	 * Creates a job system with a thread for every core.
+	 */
+	public ForkJoinJobSystem() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a job system.
+	 * @param threads The number of threads.
+	 */
+	public ForkJoinJobSystem(int threads) {
+		pool = new ForkJoinPool(threads);
+		ranges = new RangeTask[threads * RANGES_PER_THREAD];
+		for (int i = 0; i < ranges.length; i++) {
+			ranges[i] = new RangeTask();
+		}
+	}
+
+	@Override
+	public void run(int count, Job job) {
+		if (count <= MIN_RANGE) {
+			if (count > 0) {
+				job.run(0, count);
+			}
+			return;
+		}
+		final int used = Math.min(ranges.length, count / MIN_RANGE);
+		for (int i = 0; i < used; i++) {
+			ranges[i].set(job, (int) ((long) count * i / used), (int) ((long) count * (i + 1) / used));
+		}
+		for (int i = 1; i < used; i++) {
+			pool.execute(ranges[i]);
+		}
+		try {
+			ranges[0].compute();
+		} finally {
+			// Blocking in join() allocates a wait node on newer JVMs, yielding does not. The ranges
+			// must be done before their tasks can be used again, even if the first one failed.
+			for (int i = used - 1; i > 0; i--) {
+				while (!ranges[i].isDone()) {
+					Thread.yield();
+				}
+			}
+		}
+		for (int i = 1; i < used; i++) {
+			// The range is done, so this does not block, but rethrows what the job threw.
+			ranges[i].join();
+		}
+		for (int i = 0; i < used; i++) {
+			ranges[i].job = null;
+		}
+	}
+
+	@Override
+	public int getThreads() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Runs a job for a range of items.
+	 */
+	private static class RangeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The job, or null between jobs.
+		 */
+		private Job job;
+
+		/**
+		 * The first item.
+		 */
+		private int from;
+
+		/**
+		 * The item after the last item.
+		 */
+		private int to;
+
+		/**
+		 * Prepares the task for the next job.
+		 * @param job The job.
+		 * @param from The first item.
+		 * @param to The item after the last item.
+		 */
+		public void set(Job job, int from, int to) {
+			this.job = job;
+			this.from = from;
+			this.to = to;
+			reinitialize();
+		}
+
+		@Override
+		protected void compute() {
+			job.run(from, to);
+		}
+	}
+}
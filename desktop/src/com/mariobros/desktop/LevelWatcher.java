@@ -0,0 +1,125 @@
+package com.mariobros.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.mariobros.SuperMarioBros;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches the TMX file of the level and has the game apply its changes while it is played. The
+ * watching is done on a daemon thread, the level is changed on the render thread.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class LevelWatcher implements Runnable {
+
+	/**
+	 * The time to wait after a change before reloading, in milliseconds. Editors often write a
+	 * file in several steps, the changes in this time are reloaded at once.
+	 */
+	private static final long SETTLE_TIME = 100;
+
+	/**
+	 * The tag used for logging.
+	 */
+	private static final String TAG = "LevelWatcher";
+
+	/**
+	 * The game whose level is reloaded.
+	 */
+	private final SuperMarioBros game;
+
+	/**
+	 * The watched file.
+	 */
+	private final Path file;
+
+	/**
+	 * Creates a watcher. The game must have the file as its reload file.
+	 * @param game The game whose level is reloaded.
+	 * @param file The TMX file of the level.
+	 */
+	public LevelWatcher(SuperMarioBros game, File file) {
+		this.game = game;
+		this.file = file.getAbsoluteFile().toPath();
+	}
+
+	/**
+	 * Starts watching on a daemon thread.
+	 */
+	public void start() {
+		Thread thread = new Thread(this, TAG);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void run() {
+		WatchService watcher = null;
+		try {
+			watcher = FileSystems.getDefault().newWatchService();
+			file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+			Gdx.app.log(TAG, "Watching " + file);
+			while (true) {
+				if (!isChanged(watcher.take())) {
+					continue;
+				}
+				final long changedAt = TimeUtils.nanoTime();
+				Thread.sleep(SETTLE_TIME);
+				WatchKey key;
+				while ((key = watcher.poll()) != null) {
+					isChanged(key);
+				}
+				Gdx.app.postRunnable(new Runnable() {
+					@Override
+					public void run() {
+						game.reloadLevel(changedAt);
+					}
+				});
+			}
+		} catch (IOException e) {
+			Gdx.app.error(TAG, "Can not watch " + file, e);
+		} catch (InterruptedException e) {
+			// Stopped watching.
+		} catch (ClosedWatchServiceException e) {
+			// Stopped watching.
+		} finally {
+			if (watcher != null) {
+				try {
+					watcher.close();
+				} catch (IOException e) {
+					// Nothing left to do.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes the events of a key and resets it.
+	 * @param key The key that was signalled.
+	 * @return true if one of the events is about the watched file.
+	 */
+	private boolean isChanged(WatchKey key) {
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (file.getFileName().equals(event.context())) {
+				changed = true;
+			}
+		}
+		key.reset();
+		return changed;
+	}
+}
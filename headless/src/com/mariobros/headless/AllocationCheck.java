@@ -0,0 +1,265 @@
+package com.mariobros.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.interfaces.JobSystem;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.tools.BodyPool;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that playing the level does not allocate memory once it is running. The level is
+ * played with scripted input, first to warm up and then while the bytes allocated by all threads
+ * are counted, so the threads of the job system are counted too. The process exits with status 1
+ * if more than the allowed number of bytes per frame was allocated, so the build fails when
+ * allocations creep back into the frame loop. Supported arguments are {@code --frames <n>},
+ * {@code --warmup <n>}, {@code --max-bytes-per-frame <n>}, {@code --job-system <class>}, the
+ * class of a job system with a constructor without arguments to run the enemies on instead of
+ * the serial one, and {@code --enemies <n>}, a number of goombas spawned at the start so the job
+ * system has enough enemies to spread over its threads. The goombas are spawned in a pen above
+ * the start of the level, so they keep walking in view instead of walking off the level.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class AllocationCheck extends ApplicationAdapter {
+
+	/**
+	 * The tag used for logging.
+	 */
+	private static final String TAG = "Allocations";
+
+	/**
+	 * The time of a single frame, in seconds.
+	 */
+	private static final float FRAME_TIME = 1 / 60f;
+
+	/**
+	 * The default number of bytes per frame that is still accepted. This leaves room for the
+	 * few bytes the JVM itself allocates now and then, but not for a single object per frame.
+	 */
+	private static final double DEFAULT_MAX_BYTES_PER_FRAME = 1;
+
+	/**
+	 * The distance between the goombas that are spawned, in world units.
+	 */
+	private static final float ENEMY_SPACING = 0.2f;
+
+	/**
+	 * The number of goombas spawned on top of each other, so more of them fit in the view.
+	 */
+	private static final int ENEMY_ROWS = 4;
+
+	/**
+	 * The left side of the pen the goombas are spawned in, in world units.
+	 */
+	private static final float PEN_LEFT = 1;
+
+	/**
+	 * The height of the floor of the pen, in world units.
+	 */
+	private static final float PEN_FLOOR = 1.3f;
+
+	/**
+	 * The height of the walls of the pen, in world units.
+	 */
+	private static final float PEN_HEIGHT = 1;
+
+	/**
+	 * Half the thickness of the floor and walls of the pen, in world units.
+	 */
+	private static final float PEN_THICKNESS = 0.02f;
+
+	/**
+	 * The number of frames played before counting.
+	 */
+	private final int warmupFrames;
+
+	/**
+	 * The number of frames that are counted.
+	 */
+	private final int frames;
+
+	/**
+	 * The number of bytes per frame that is still accepted.
+	 */
+	private final double maxBytesPerFrame;
+
+	/**
+	 * The job system the enemies think on, or null for the one of the game.
+	 */
+	private final JobSystem jobs;
+
+	/**
+	 * The number of goombas spawned at the start.
+	 */
+	private final int enemies;
+
+	/**
+	 * The game that is played.
+	 */
+	private SuperMarioBros game;
+
+	/**
+	 * The input that plays the game.
+	 */
+	private ScriptedInput input;
+
+	/**
+	 * true if the frame loop stayed below the allowed allocations.
+	 */
+	private boolean passed;
+
+	/**
+	 * true once the allocations have been counted.
+	 */
+	private boolean done;
+
+	/**
+	 * Creates a new allocation check.
+	 * @param warmupFrames The number of frames played before counting.
+	 * @param frames The number of frames that are counted.
+	 * @param maxBytesPerFrame The number of bytes per frame that is still accepted.
+	 * @param jobs The job system the enemies think on, or null for the one of the game.
+	 * @param enemies The number of goombas spawned at the start.
+	 */
+	public AllocationCheck(int warmupFrames, int frames, double maxBytesPerFrame, JobSystem jobs, int enemies) {
+		this.warmupFrames = warmupFrames;
+		this.frames = frames;
+		this.maxBytesPerFrame = maxBytesPerFrame;
+		this.jobs = jobs;
+		this.enemies = enemies;
+	}
+
+	public static void main (String[] arg) throws InterruptedException {
+		int frames = 5000;
+		int warmup = 1000;
+		double maxBytesPerFrame = DEFAULT_MAX_BYTES_PER_FRAME;
+		JobSystem jobs = null;
+		int enemies = 0;
+		for (int i = 0; i + 1 < arg.length; i += 2) {
+			if ("--frames".equals(arg[i])) {
+				frames = Integer.parseInt(arg[i + 1]);
+			} else if ("--warmup".equals(arg[i])) {
+				warmup = Integer.parseInt(arg[i + 1]);
+			} else if ("--max-bytes-per-frame".equals(arg[i])) {
+				maxBytesPerFrame = Double.parseDouble(arg[i + 1]);
+			} else if ("--job-system".equals(arg[i])) {
+				jobs = createJobSystem(arg[i + 1]);
+			} else if ("--enemies".equals(arg[i])) {
+				enemies = Integer.parseInt(arg[i + 1]);
+			} else {
+				throw new IllegalArgumentException("Unknown argument " + arg[i]);
+			}
+		}
+		AllocationCheck check = new AllocationCheck(warmup, frames, maxBytesPerFrame, jobs, enemies);
+		HeadlessLauncher.run(check);
+		System.exit(check.hasPassed() ? 0 : 1);
+	}
+
+	/**
+	 * Creates a job system by the name of its class. The job systems of the platforms are not on
+	 * the classpath of this project, so they are found at runtime.
+	 * @param name The name of the class, which must have a constructor without arguments.
+	 * @return The job system.
+	 * @throws IllegalArgumentException If the job system can not be created.
+	 */
+	private static JobSystem createJobSystem(String name) {
+		try {
+			return (JobSystem) Class.forName(name).newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Can not create job system " + name, e);
+		}
+	}
+
+	@Override
+	public void create() {
+		Gdx.gl = Gdx.gl20 = new NoopGL20();
+		game = new SuperMarioBros();
+		if (jobs != null) {
+			game.setJobSystem(jobs);
+		}
+		game.create();
+		game.manager.finishLoading();
+		game.startLevel();
+		final LevelScreen level = (LevelScreen) game.getScreen();
+		if (enemies > 0) {
+			buildPen(level);
+		}
+		for (int i = 0; i < enemies; i++) {
+			level.getGoombaPool().obtain().spawn(level.getEngine(), PEN_LEFT + (i / ENEMY_ROWS + 1) * ENEMY_SPACING,
+					PEN_FLOOR + (i % ENEMY_ROWS + 1) * ENEMY_SPACING);
+		}
+		input = new ScriptedInput(60, 45);
+		Gdx.input = input;
+	}
+
+	/**
+	 * Adds a floor with a wall on both sides for the goombas that are spawned. Goombas walk
+	 * until they are blocked, so without the walls they would leave the view and be put to sleep.
+	 * @param level The level the pen is added to.
+	 */
+	private void buildPen(LevelScreen level) {
+		final float width = ((enemies + ENEMY_ROWS - 1) / ENEMY_ROWS + 1) * ENEMY_SPACING;
+		final BodyPool bodies = level.getBodyPool();
+		bodies.obtain(PEN_LEFT + width / 2, PEN_FLOOR, width / 2, PEN_THICKNESS, SuperMarioBros.GROUND_BIT, null);
+		bodies.obtain(PEN_LEFT, PEN_FLOOR + PEN_HEIGHT / 2, PEN_THICKNESS, PEN_HEIGHT / 2,
+				SuperMarioBros.GROUND_BIT, null);
+		bodies.obtain(PEN_LEFT + width, PEN_FLOOR + PEN_HEIGHT / 2, PEN_THICKNESS, PEN_HEIGHT / 2,
+				SuperMarioBros.GROUND_BIT, null);
+	}
+
+	@Override
+	public void render() {
+		if (done) {
+			return;
+		}
+		final Screen level = game.getScreen();
+		for (int i = 0; i < warmupFrames; i++) {
+			level.render(FRAME_TIME);
+			input.nextFrame();
+		}
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long[] ids = threads.getAllThreadIds();
+		final long[] start = threads.getThreadAllocatedBytes(ids);
+		for (int i = 0; i < frames; i++) {
+			level.render(FRAME_TIME);
+			input.nextFrame();
+		}
+		final long[] end = threads.getThreadAllocatedBytes(ids);
+		long allocated = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (start[i] >= 0 && end[i] >= 0) {
+				allocated += end[i] - start[i];
+			}
+		}
+		final double bytesPerFrame = (double) allocated / frames;
+		passed = bytesPerFrame <= maxBytesPerFrame;
+		Gdx.app.log(TAG, allocated + " bytes in " + frames + " frames by " + ids.length + " threads: "
+				+ bytesPerFrame + " bytes/frame, enemies on " + game.getJobSystem().getThreads() + " threads");
+		Gdx.app.log(TAG, ((LevelScreen) level).getActivation().getActiveCount() + " active enemies at the end");
+		if (!passed) {
+			Gdx.app.error(TAG, "Above the allowed " + maxBytesPerFrame + " bytes/frame");
+		}
+		done = true;
+		Gdx.app.exit();
+	}
+
+	@Override
+	public void dispose() {
+		game.dispose();
+	}
+
+	/**
+	 * Checks if the frame loop stayed below the allowed allocations.
+	 * @return true if the check passed.
+	 */
+	public boolean hasPassed() {
+		return passed;
+	}
+}
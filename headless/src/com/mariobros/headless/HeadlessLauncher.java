@@ -0,0 +1,112 @@
+package com.mariobros.headless;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.mariobros.tools.PerformanceProfile;
+
+/**
+ * Launches the game without a window or GPU and measures how fast the level can be simulated.
+ * Supported arguments are {@code --steps <n>}, {@code --warmup <n>} and
+ * {@code --min-sps <steps per second>} and {@code --frames <n>}, the number of frames rendered
+ * afterwards to count the render calls and texture bindings. The process exits with status 1 if the simulation
+ * was slower than the given minimum, so it can be used as a regression check. With
+ * {@code --replay <file>} a recorded play session is replayed instead, and the process exits
+ * with status 1 if the replay does not end in the recorded state. {@code --profile <name>}
+ * selects the performance profile of the simulation; a replay uses the profile it was recorded with.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class HeadlessLauncher {
+
+	/**
+	 * The default number of steps to measure.
+	 */
+	private static final int DEFAULT_STEPS = 20000;
+
+	/**
+	 * The default number of warmup steps.
+	 */
+	private static final int DEFAULT_WARMUP = 2000;
+
+	/**
+	 * The default number of frames rendered to count the render calls.
+	 */
+	private static final int DEFAULT_FRAMES = 300;
+
+	/**
+	 * The arguments the launcher accepts.
+	 */
+	private static final String USAGE = "Usage: [--steps <n>] [--warmup <n>] [--min-sps <steps per second>]"
+			+ " [--frames <n>] [--replay <file>] [--profile <name>]";
+
+	public static void main (String[] arg) throws InterruptedException {
+		int steps = DEFAULT_STEPS;
+		int warmup = DEFAULT_WARMUP;
+		double minStepsPerSecond = 0;
+		int frames = DEFAULT_FRAMES;
+		String replay = null;
+		PerformanceProfile profile = PerformanceProfile.BALANCED;
+		for (int i = 0; i < arg.length; i += 2) {
+			if (i + 1 == arg.length) {
+				throw new IllegalArgumentException(arg[i] + " needs a value. " + USAGE);
+			}
+			if ("--steps".equals(arg[i])) {
+				steps = Integer.parseInt(arg[i + 1]);
+			} else if ("--warmup".equals(arg[i])) {
+				warmup = Integer.parseInt(arg[i + 1]);
+			} else if ("--min-sps".equals(arg[i])) {
+				minStepsPerSecond = Double.parseDouble(arg[i + 1]);
+			} else if ("--frames".equals(arg[i])) {
+				frames = Integer.parseInt(arg[i + 1]);
+			} else if ("--replay".equals(arg[i])) {
+				replay = arg[i + 1];
+			} else if ("--profile".equals(arg[i])) {
+				profile = PerformanceProfile.forName(arg[i + 1]);
+			} else {
+				throw new IllegalArgumentException("Unknown argument " + arg[i] + ". " + USAGE);
+			}
+		}
+		if (replay != null) {
+			ReplayRunner runner = new ReplayRunner(new FileHandle(replay));
+			run(runner);
+			System.exit(runner.hasPassed() ? 0 : 1);
+		}
+		SimulationRunner runner = new SimulationRunner(warmup, steps, minStepsPerSecond, frames, profile);
+		run(runner);
+		System.exit(runner.hasPassed() ? 0 : 1);
+	}
+
+	/**
+	 * Runs the listener in a headless application and waits until it exits.
+	 * @param listener The listener to run.
+	 * @throws InterruptedException If the waiting thread is interrupted.
+	 */
+	public static void run(ApplicationListener listener) throws InterruptedException {
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.renderInterval = 0;
+		new BlockingHeadlessApplication(listener, config).join();
+	}
+
+	/**
+	 * A headless application whose main loop can be waited for.
+	 */
+	private static class BlockingHeadlessApplication extends HeadlessApplication {
+
+		public BlockingHeadlessApplication(ApplicationListener listener, HeadlessApplicationConfiguration config) {
+			super(listener, config);
+		}
+
+		/**
+		 * Waits until the main loop has finished.
+		 * @throws InterruptedException If the waiting thread is interrupted.
+		 */
+		public void join() throws InterruptedException {
+			mainLoopThread.join();
+		}
+	}
+}
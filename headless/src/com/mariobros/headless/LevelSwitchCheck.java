@@ -0,0 +1,202 @@
+package com.mariobros.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.tools.LevelManager;
+
+/**
+ * Checks that the level manager prepares the next level while a level is played. The game has
+ * a single level, so copies of it are registered as the next levels, one more than the manager
+ * keeps loaded. The check plays every level until the next one is loaded and baked, makes
+ * mario reach the goal and checks that the next level started with the baked geometry, until
+ * the first level is played again. It fails if a level is not prepared in time, if more levels
+ * stay loaded than the manager keeps or if no level was ever unloaded. The copies are deleted
+ * afterwards. The process exits with status 1 if the check failed. The only supported argument
+ * is {@code --max-frames <n>}, the number of frames the next level may take to be prepared.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class LevelSwitchCheck extends ApplicationAdapter {
+
+	/**
+	 * The tag used for logging.
+	 */
+	private static final String TAG = "LevelSwitch";
+
+	/**
+	 * The time of a single frame, in seconds.
+	 */
+	private static final float FRAME_TIME = 1 / 60f;
+
+	/**
+	 * The start of the names of the copies of the level.
+	 */
+	private static final String COPY_PREFIX = "levelcheck-";
+
+	/**
+	 * The default number of frames the next level may take to be prepared.
+	 */
+	private static final int DEFAULT_MAX_FRAMES = 600;
+
+	/**
+	 * The number of frames the next level may take to be prepared.
+	 */
+	private final int maxFrames;
+
+	/**
+	 * The ids of the levels, in the order they are played.
+	 */
+	private final Array<String> ids = new Array<String>();
+
+	/**
+	 * The copies of the level file, deleted when the check is disposed.
+	 */
+	private final Array<FileHandle> copies = new Array<FileHandle>();
+
+	/**
+	 * The game that is played.
+	 */
+	private SuperMarioBros game;
+
+	/**
+	 * true if every level was prepared ahead and started with its baked geometry.
+	 */
+	private boolean passed;
+
+	/**
+	 * true once the levels have been played.
+	 */
+	private boolean done;
+
+	/**
+	 * Creates a new level switch check.
+	 * @param maxFrames The number of frames the next level may take to be prepared.
+	 */
+	public LevelSwitchCheck(int maxFrames) {
+		this.maxFrames = maxFrames;
+	}
+
+	public static void main (String[] arg) throws InterruptedException {
+		int maxFrames = DEFAULT_MAX_FRAMES;
+		for (int i = 0; i + 1 < arg.length; i += 2) {
+			if ("--max-frames".equals(arg[i])) {
+				maxFrames = Integer.parseInt(arg[i + 1]);
+			} else {
+				throw new IllegalArgumentException("Unknown argument " + arg[i]);
+			}
+		}
+		LevelSwitchCheck check = new LevelSwitchCheck(maxFrames);
+		HeadlessLauncher.run(check);
+		System.exit(check.hasPassed() ? 0 : 1);
+	}
+
+	@Override
+	public void create() {
+		Gdx.gl = Gdx.gl20 = new NoopGL20();
+		game = new SuperMarioBros();
+		game.create();
+		final LevelManager levels = game.getLevels();
+		ids.add(levels.getFirst());
+		// The copies are written next to the level, so the paths in the file still resolve.
+		final FileHandle level = Gdx.files.local(SuperMarioBros.getLevelFileName(SuperMarioBros.LEVEL));
+		for (int i = 2; i <= LevelManager.CACHED_LEVELS + 1; i++) {
+			final FileHandle copy = level.sibling(COPY_PREFIX + i + "." + level.extension());
+			level.copyTo(copy);
+			copies.add(copy);
+			final String id = "1-" + i;
+			levels.add(id, copy.pathWithoutExtension());
+			ids.add(id);
+		}
+		game.manager.finishLoading();
+		game.startLevel();
+	}
+
+	@Override
+	public void render() {
+		if (done) {
+			return;
+		}
+		passed = playLevels();
+		done = true;
+		Gdx.app.exit();
+	}
+
+	/**
+	 * Plays every level until the next level is prepared and switches to it, until the first
+	 * level is played again.
+	 * @return true if every switch used a prepared level and old levels were unloaded.
+	 */
+	private boolean playLevels() {
+		final LevelManager levels = game.getLevels();
+		boolean unloaded = false;
+		for (int i = 0; i < ids.size; i++) {
+			final LevelScreen level = (LevelScreen) game.getScreen();
+			final String next = levels.getNext(level.getLevel());
+			int frames = 0;
+			while (!levels.isPrepared(next) && frames < maxFrames) {
+				level.render(FRAME_TIME);
+				frames++;
+			}
+			if (!levels.isPrepared(next)) {
+				Gdx.app.error(TAG, "Level " + next + " was not prepared after " + frames + " frames");
+				return false;
+			}
+			int loaded = 0;
+			for (String id : ids) {
+				if (levels.isLoaded(id)) {
+					loaded++;
+				} else {
+					unloaded = true;
+				}
+			}
+			if (loaded > LevelManager.CACHED_LEVELS) {
+				Gdx.app.error(TAG, loaded + " levels are loaded but at most " + LevelManager.CACHED_LEVELS
+						+ " are kept");
+				return false;
+			}
+			level.reachGoal();
+			final long start = TimeUtils.nanoTime();
+			level.render(FRAME_TIME);
+			final long elapsed = TimeUtils.timeSinceNanos(start);
+			if (!(game.getScreen() instanceof LevelScreen) || !next.equals(((LevelScreen) game.getScreen()).getLevel())) {
+				Gdx.app.error(TAG, "Level " + next + " did not start at the goal of " + level.getLevel());
+				return false;
+			}
+			if (levels.isPrepared(next)) {
+				Gdx.app.error(TAG, "Level " + next + " did not use its baked geometry");
+				return false;
+			}
+			Gdx.app.log(TAG, "Prepared " + next + " in " + frames + " frames, " + loaded
+					+ " levels loaded, switched in " + (elapsed / 1000000) + " ms");
+		}
+		if (!unloaded) {
+			Gdx.app.error(TAG, "No level was unloaded");
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void dispose() {
+		game.dispose();
+		for (FileHandle copy : copies) {
+			copy.delete();
+		}
+	}
+
+	/**
+	 * Checks if every level was prepared ahead and old levels were unloaded.
+	 * @return true if the check passed.
+	 */
+	public boolean hasPassed() {
+		return passed;
+	}
+}
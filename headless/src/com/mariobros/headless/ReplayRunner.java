@@ -0,0 +1,137 @@
+package com.mariobros.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.tools.InputRecording;
+import com.mariobros.tools.InputReplay;
+
+/**
+ * Replays a recorded play session without rendering. The recorded buttons are fed to the
+ * level step by step as fast as possible, after which the state mario ended in is compared to
+ * the state of the recording. The level runs with the performance profile of the recording.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class ReplayRunner extends ApplicationAdapter {
+
+    /**
+     * The tag used for logging.
+     */
+    private static final String TAG = "Replay";
+
+    /**
+     * The file of the recording.
+     */
+    private final FileHandle file;
+
+    /**
+     * The recording that is replayed.
+     */
+    private InputRecording recording;
+
+    /**
+     * The game that is simulated.
+     */
+    private SuperMarioBros game;
+
+    /**
+     * The measured steps per second.
+     */
+    private double stepsPerSecond;
+
+    /**
+     * true if the replay ended in the recorded state.
+     */
+    private boolean passed;
+
+    /**
+     * true once the recording has been replayed.
+     */
+    private boolean done;
+
+    /**
+     * Creates a new replay runner.
+     * @param file The file of the recording.
+     */
+    public ReplayRunner(FileHandle file) {
+        this.file = file;
+    }
+
+    @Override
+    public void create() {
+        Gdx.gl = Gdx.gl20 = new NoopGL20();
+        recording = InputRecording.read(file);
+        if (!SuperMarioBros.LEVEL.equals(recording.getLevel())) {
+            Gdx.app.error(TAG, file + " is a recording of " + recording.getLevel() + " but the game plays "
+                    + SuperMarioBros.LEVEL);
+            done = true;
+            Gdx.app.exit();
+            return;
+        }
+        game = new SuperMarioBros();
+        game.setPerformanceProfile(recording.getProfile());
+        game.create();
+        game.manager.finishLoading();
+        game.startLevel();
+    }
+
+    @Override
+    public void render() {
+        if (done) {
+            return;
+        }
+        final LevelScreen level = (LevelScreen) game.getScreen();
+        level.setStepRate(recording.getStepRate());
+        final InputReplay replay = new InputReplay(recording);
+        level.setInputSource(replay);
+        final long start = TimeUtils.nanoTime();
+        while (!replay.isFinished()) {
+            level.step();
+        }
+        final long elapsed = TimeUtils.nanoTime() - start;
+        final int steps = recording.getStepCount();
+        stepsPerSecond = steps / (elapsed / 1000000000.0);
+        Gdx.app.log(TAG, steps + " steps in " + (elapsed / 1000000) + " ms: "
+                + Math.round(stepsPerSecond) + " steps/s ("
+                + Math.round(stepsPerSecond / recording.getStepRate()) + "x real time)");
+        passed = recording.matchesFinalState(level.getPlayer());
+        if (passed) {
+            Gdx.app.log(TAG, "Ended in the recorded state: " + recording.getFinalState());
+        } else {
+            Gdx.app.error(TAG, "Recorded " + recording.getFinalState() + " but replayed "
+                    + InputRecording.describe(level.getPlayer()));
+        }
+        done = true;
+        Gdx.app.exit();
+    }
+
+    @Override
+    public void dispose() {
+        if (game != null) {
+            game.dispose();
+        }
+    }
+
+    /**
+     * Returns the measured number of steps per second.
+     * @return The steps per second, or 0 if the recording has not been replayed yet.
+     */
+    public double getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    /**
+     * Checks if the replay ended in the recorded state.
+     * @return true if the replay matched the recording.
+     */
+    public boolean hasPassed() {
+        return passed;
+    }
+}
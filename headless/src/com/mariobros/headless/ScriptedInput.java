@@ -0,0 +1,59 @@
+package com.mariobros.headless;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+
+/**
+ * Input that plays a fixed pattern instead of reading a keyboard. Mario walks right and left
+ * in turns and jumps at a regular interval, so a level can be played without a player.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class ScriptedInput extends MockInput {
+
+	/**
+	 * The number of frames Mario walks in one direction before turning around.
+	 */
+	private final int walkFrames;
+
+	/**
+	 * The number of frames between two jumps.
+	 */
+	private final int jumpInterval;
+
+	/**
+	 * The current frame.
+	 */
+	private int frame;
+
+	/**
+	 * Creates new scripted input.
+	 * @param walkFrames The number of frames to walk in one direction before turning around.
+	 * @param jumpInterval The number of frames between two jumps.
+	 */
+	public ScriptedInput(int walkFrames, int jumpInterval) {
+		this.walkFrames = walkFrames;
+		this.jumpInterval = jumpInterval;
+	}
+
+	/**
+	 * Moves the script to the next frame.
+	 */
+	public void nextFrame() {
+		frame++;
+	}
+
+	@Override
+	public boolean isKeyPressed(int key) {
+		final boolean right = frame / walkFrames % 2 == 0;
+		return right ? key == Input.Keys.RIGHT : key == Input.Keys.LEFT;
+	}
+
+	@Override
+	public boolean isKeyJustPressed(int key) {
+		return key == Input.Keys.UP && frame % jumpInterval == 0;
+	}
+}
@@ -0,0 +1,178 @@
+package com.mariobros.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.mariobros.SuperMarioBros;
+import com.mariobros.screens.LevelScreen;
+import com.mariobros.tools.FrameProfiler;
+import com.mariobros.tools.PackedAtlas;
+import com.mariobros.tools.PerformanceProfile;
+
+/**
+ * Runs the level simulation without rendering. The assets the game queues are loaded at once,
+ * without the loading screen, after which the simulation is stepped as fast as possible and
+ * the number of simulated steps per second is reported. Then frames are rendered on a GL that
+ * does nothing and the mean render calls and texture bindings per frame that the frame profiler
+ * counted are reported, so the effect of batching and atlas packing can be checked without a GPU.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class SimulationRunner extends ApplicationAdapter {
+
+    /**
+     * The tag used for logging.
+     */
+    private static final String TAG = "Simulation";
+
+    /**
+     * The number of steps run before measuring.
+     */
+    private final int warmupSteps;
+
+    /**
+     * The number of steps that are measured.
+     */
+    private final int steps;
+
+    /**
+     * The minimal number of steps per second that is accepted, or 0 to accept everything.
+     */
+    private final double minStepsPerSecond;
+
+    /**
+     * The number of frames that are rendered to count the render calls.
+     */
+    private final int frames;
+
+    /**
+     * The performance profile the level runs with.
+     */
+    private final PerformanceProfile profile;
+
+    /**
+     * The game that is simulated.
+     */
+    private SuperMarioBros game;
+
+    /**
+     * The measured steps per second.
+     */
+    private double stepsPerSecond;
+
+    /**
+     * true if the simulation ran and was fast enough.
+     */
+    private boolean passed;
+
+    /**
+     * true once the simulation has been measured.
+     */
+    private boolean done;
+
+    /**
+     * Creates a new simulation runner.
+     * @param warmupSteps The number of steps run before measuring.
+     * @param steps The number of steps to measure.
+     * @param minStepsPerSecond The minimal accepted steps per second, or 0 to accept everything.
+     * @param frames The number of frames to render to count the render calls, or 0 to render none.
+     * @param profile The performance profile to run with.
+     */
+    public SimulationRunner(int warmupSteps, int steps, double minStepsPerSecond, int frames,
+                            PerformanceProfile profile) {
+        this.warmupSteps = warmupSteps;
+        this.frames = frames;
+        this.profile = profile;
+        this.steps = steps;
+        this.minStepsPerSecond = minStepsPerSecond;
+    }
+
+    @Override
+    public void create() {
+        Gdx.gl = Gdx.gl20 = new NoopGL20();
+        game = new SuperMarioBros();
+        game.setPerformanceProfile(profile);
+        game.create();
+        game.manager.finishLoading();
+        game.startLevel();
+    }
+
+    @Override
+    public void render() {
+        if (done) {
+            return;
+        }
+        final LevelScreen level = (LevelScreen) game.getScreen();
+        final float dt = level.getStepTime();
+        for (int i = 0; i < warmupSteps; i++) {
+            level.update(dt);
+        }
+        final long start = TimeUtils.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            level.update(dt);
+        }
+        final long elapsed = TimeUtils.nanoTime() - start;
+        stepsPerSecond = steps / (elapsed / 1000000000.0);
+        passed = stepsPerSecond >= minStepsPerSecond;
+        Gdx.app.log(TAG, steps + " steps in " + (elapsed / 1000000) + " ms: "
+                + Math.round(stepsPerSecond) + " steps/s ("
+                + Math.round(stepsPerSecond * dt) + "x real time)");
+        Gdx.app.log(TAG, level.getWorld().getBodyCount() + " bodies, " + level.getWorld().getFixtureCount()
+                + " fixtures, " + level.getWorld().getProxyCount() + " broadphase proxies");
+        Gdx.app.log(TAG, "Contacts: " + level.getCollisions());
+        Gdx.app.log(TAG, level.getActivation().getActiveCount() + " active enemies, "
+                + level.getActivation().getInactiveCount() + " inactive enemies");
+        Gdx.app.log(TAG, "Pools: " + level.getBodyPool() + "; " + level.getGoombaPool());
+        if (frames > 0) {
+            countRenderCalls(level);
+        }
+        if (!passed) {
+            Gdx.app.error(TAG, "Below the required " + Math.round(minStepsPerSecond) + " steps/s");
+        }
+        done = true;
+        Gdx.app.exit();
+    }
+
+    /**
+     * Renders frames with the frame profiler on and reports the mean render calls and texture
+     * bindings per frame.
+     * @param level The level to render.
+     */
+    private void countRenderCalls(LevelScreen level) {
+        final FrameProfiler profiler = level.getProfiler();
+        final boolean enabled = profiler.isEnabled();
+        profiler.setEnabled(true);
+        for (int i = 0; i < frames; i++) {
+            level.render(level.getStepTime());
+        }
+        Gdx.app.log(TAG, "Rendered " + profiler.getFrameCount() + " frames "
+                + (PackedAtlas.isPacked() ? "with the packed atlas" : "with separate textures") + ": "
+                + profiler.getMeanRenderCalls() + " render calls and "
+                + profiler.getMeanTextureBindings() + " texture bindings per frame");
+        profiler.setEnabled(enabled);
+    }
+
+    @Override
+    public void dispose() {
+        game.dispose();
+    }
+
+    /**
+     * Returns the measured number of steps per second.
+     * @return The steps per second, or 0 if the simulation has not run yet.
+     */
+    public double getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    /**
+     * Checks if the simulation ran and reached the required speed.
+     * @return true if the simulation was fast enough.
+     */
+    public boolean hasPassed() {
+        return passed;
+    }
+}
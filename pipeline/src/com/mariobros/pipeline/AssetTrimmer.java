@@ -0,0 +1,310 @@
+package com.mariobros.pipeline;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.XmlReader;
+import com.mariobros.tools.AnimationSets;
+import com.mariobros.tools.BinaryMapLoader;
+import com.mariobros.tools.PackedAtlas;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Copies only the assets the game loads into the directory that is packaged, so the source
+ * images, sheets and TMX files stay out of the APK and the desktop jar. The first argument is
+ * the assets directory, the second the directory to copy to. The game loads the packed atlas,
+ * or the sheets without it, and every level with the files it refers to.
+ *
+ * <p>For every level the texture memory and the file size of what it loads are reported, from
+ * the TMX file with its tilesets and from the compiled level with the packed atlas.</p>
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class AssetTrimmer {
+
+    /**
+     * The number of bytes of a pixel in a texture.
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * The parser for the TMX files.
+     */
+    private final XmlReader xml = new XmlReader();
+
+    /**
+     * The assets directory.
+     */
+    private final File assets;
+
+    /**
+     * The paths of the assets the game loads, relative to the assets directory.
+     */
+    private final SortedSet<String> used = new TreeSet<String>();
+
+    public static void main(String[] args) throws IOException {
+        AssetTrimmer trimmer = new AssetTrimmer(new File(args[0]));
+        trimmer.addSprites();
+        trimmer.addLevels();
+        trimmer.copyTo(new File(args[1]));
+    }
+
+    /**
+     * Creates a trimmer for an assets directory.
+     * @param assets The assets directory.
+     */
+    public AssetTrimmer(File assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Adds the sprites the game loads: the packed atlas if it exists, otherwise the sheets and
+     * the used block, and the animation sets.
+     */
+    public void addSprites() {
+        final File atlas = new File(assets, PackedAtlas.ATLAS);
+        if (atlas.exists()) {
+            addAtlas(atlas);
+        } else {
+            for (String sheet : PackedAtlas.SHEETS) {
+                addAtlas(new File(assets, sheet + PackedAtlas.SHEET_EXTENSION));
+            }
+            add(new File(assets, PackedAtlas.USED_BLOCK + PackedAtlas.USED_BLOCK_EXTENSION));
+        }
+        add(new File(assets, AnimationSets.FILE));
+    }
+
+    /**
+     * Adds every level with the files it loads and reports what the level costs before and
+     * after trimming.
+     * @throws IOException If a level could not be read.
+     */
+    public void addLevels() throws IOException {
+        for (File tmx : new File(assets, AtlasPacker.LEVELS).listFiles()) {
+            if (tmx.getName().endsWith(".tmx")) {
+                addLevel(tmx);
+            }
+        }
+    }
+
+    /**
+     * Adds a level. The compiled level is used if it exists, like the game does.
+     * @param tmx The TMX file of the level.
+     * @throws IOException If the level could not be read.
+     */
+    private void addLevel(File tmx) throws IOException {
+        XmlReader.Element root;
+        InputStream in = new FileInputStream(tmx);
+        try {
+            root = xml.parse(in);
+        } finally {
+            in.close();
+        }
+        long textureBefore = 0;
+        long filesBefore = tmx.length();
+        for (XmlReader.Element tileset : root.getChildrenByName("tileset")) {
+            File image = new File(tmx.getParentFile(), tileset.getChildByName("image").getAttribute("source"));
+            textureBefore += textureBytes(image);
+            filesBefore += image.length();
+        }
+        final File compiled = LevelCompiler.outputFor(tmx);
+        if (!compiled.exists()) {
+            add(tmx);
+            for (XmlReader.Element tileset : root.getChildrenByName("tileset")) {
+                add(new File(tmx.getParentFile(), tileset.getChildByName("image").getAttribute("source")));
+            }
+            System.out.println(tmx.getName() + ": not compiled, packaged as it is");
+            return;
+        }
+        add(compiled);
+        long textureAfter = 0;
+        long filesAfter = compiled.length();
+        for (FileHandle reference : BinaryMapLoader.getReferences(new FileHandle(compiled))) {
+            if (reference.extension().equals("atlas")) {
+                filesAfter += reference.length();
+                for (File page : addAtlas(reference.file())) {
+                    textureAfter += textureBytes(page);
+                    filesAfter += page.length();
+                }
+            } else {
+                add(reference.file());
+                textureAfter += textureBytes(reference.file());
+                filesAfter += reference.length();
+            }
+        }
+        final SortedSet<Integer> gids = AtlasPacker.usedGids(root);
+        final Array<XmlReader.Element> tilesets = root.getChildrenByName("tileset");
+        long tileBytes = 0;
+        for (int gid : gids) {
+            XmlReader.Element tileset = LevelCompiler.tilesetOf(tilesets, gid);
+            tileBytes += (long) tileset.getIntAttribute("tilewidth") * tileset.getIntAttribute("tileheight")
+                    * BYTES_PER_PIXEL;
+        }
+        System.out.println(tmx.getName() + ": " + gids.size() + " tiles used, textures " + textureBefore + " -> "
+                + textureAfter + " bytes (" + tileBytes + " bytes of tiles, the rest is shared with the sprites), files "
+                + filesBefore + " -> " + filesAfter + " bytes");
+    }
+
+    /**
+     * Adds an atlas and its pages.
+     * @param atlas The atlas file.
+     * @return The pages of the atlas.
+     */
+    private Array<File> addAtlas(File atlas) {
+        add(atlas);
+        FileHandle file = new FileHandle(atlas);
+        TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(file, file.parent(), false);
+        Array<File> pages = new Array<File>();
+        for (TextureAtlas.TextureAtlasData.Page page : data.getPages()) {
+            add(page.textureFile.file());
+            pages.add(page.textureFile.file());
+        }
+        return pages;
+    }
+
+    /**
+     * Adds a file the game loads.
+     * @param file The file, inside the assets directory.
+     */
+    private void add(File file) {
+        used.add(relative(file));
+    }
+
+    /**
+     * Replaces the contents of a directory with the assets the game loads and reports how much
+     * smaller the packaged assets are.
+     * @param output The directory to copy to.
+     * @throws IOException If a file could not be copied.
+     */
+    public void copyTo(File output) throws IOException {
+        delete(output);
+        long copied = 0;
+        for (String path : used) {
+            File source = new File(assets, path);
+            File target = new File(output, path);
+            target.getParentFile().mkdirs();
+            copy(source, target);
+            copied += source.length();
+        }
+        final Set<String> all = new TreeSet<String>();
+        long total = 0;
+        for (File file : listFiles(assets, new Array<File>())) {
+            all.add(relative(file));
+            total += file.length();
+        }
+        all.removeAll(used);
+        for (String path : all) {
+            System.out.println("Not packaged: " + path);
+        }
+        System.out.println("Packaged " + used.size() + " of " + (used.size() + all.size()) + " assets, " + copied
+                + " of " + total + " bytes, " + (total - copied) + " bytes saved");
+    }
+
+    /**
+     * Returns the size of an image when it is uploaded as an RGBA8888 texture. Only the
+     * header of the image is read.
+     * @param image The image file.
+     * @return The size of the texture in bytes.
+     * @throws IOException If the image could not be read.
+     */
+    private static long textureBytes(File image) throws IOException {
+        ImageInputStream in = ImageIO.createImageInputStream(image);
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Can not read image " + image);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return (long) reader.getWidth(0) * reader.getHeight(0) * BYTES_PER_PIXEL;
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns the path of a file inside the assets directory.
+     * @param file The file.
+     * @return The path relative to the assets directory, with / as separator.
+     */
+    private String relative(File file) {
+        return LevelCompiler.relativePath(assets.getAbsoluteFile(), file.getAbsoluteFile());
+    }
+
+    /**
+     * Lists the files in a directory and its subdirectories.
+     * @param directory The directory.
+     * @param files The list the files are added to.
+     * @return The list.
+     */
+    private static Array<File> listFiles(File directory, Array<File> files) {
+        for (File file : directory.listFiles()) {
+            if (file.isDirectory()) {
+                listFiles(file, files);
+            } else {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Deletes a file or a directory with its contents.
+     * @param file The file to delete.
+     * @throws IOException If the file could not be deleted.
+     */
+    private static void delete(File file) throws IOException {
+        if (file.isDirectory()) {
+            for (File child : file.listFiles()) {
+                delete(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Can not delete " + file);
+        }
+    }
+
+    /**
+     * Copies a file.
+     * @param source The file to copy.
+     * @param target The file to copy to.
+     * @throws IOException If the file could not be copied.
+     */
+    private static void copy(File source, File target) throws IOException {
+        InputStream in = new FileInputStream(source);
+        try {
+            OutputStream out = new FileOutputStream(target);
+            try {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
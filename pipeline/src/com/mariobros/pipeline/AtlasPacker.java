@@ -0,0 +1,273 @@
+package com.mariobros.pipeline;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.XmlReader;
+import com.mariobros.tools.BinaryMapLoader;
+import com.mariobros.tools.PackedAtlas;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Packs every sprite the game draws into the atlas {@link PackedAtlas#ATLAS}: the regions of
+ * the sprite sheets, the used block and the tiles the levels use in their tile layers or as
+ * tile objects. Tiles no level uses are left out, so the large tilesets shrink to a part of one
+ * page. The first argument is the assets directory, the levels are the TMX files in its worlds
+ * directory.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class AtlasPacker {
+
+    /**
+     * The directory of the levels inside the assets directory.
+     */
+    public static final String LEVELS = "worlds";
+
+    /**
+     * The largest size of a page of the atlas.
+     */
+    private static final int MAX_PAGE_SIZE = 2048;
+
+    /**
+     * The parser for the TMX files.
+     */
+    private final XmlReader xml = new XmlReader();
+
+    /**
+     * The assets directory.
+     */
+    private final File assets;
+
+    /**
+     * The packer the images are added to.
+     */
+    private final TexturePacker packer;
+
+    /**
+     * The images that are loaded, by file.
+     */
+    private final Map<File, BufferedImage> images = new HashMap<File, BufferedImage>();
+
+    /**
+     * The names of the regions that are added.
+     */
+    private final Set<String> added = new HashSet<String>();
+
+    /**
+     * The number of textures the sprites were spread over before packing.
+     */
+    private int texturesBefore;
+
+    public static void main(String[] args) throws IOException {
+        AtlasPacker packer = new AtlasPacker(new File(args[0]));
+        packer.addSheets();
+        packer.addLevels();
+        packer.pack();
+    }
+
+    /**
+     * Creates a packer for the sprites in an assets directory.
+     * @param assets The assets directory.
+     */
+    public AtlasPacker(File assets) {
+        this.assets = assets;
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.maxWidth = MAX_PAGE_SIZE;
+        settings.maxHeight = MAX_PAGE_SIZE;
+        settings.paddingX = 2;
+        settings.paddingY = 2;
+        settings.duplicatePadding = true;
+        settings.filterMin = Texture.TextureFilter.Nearest;
+        settings.filterMag = Texture.TextureFilter.Nearest;
+        packer = new TexturePacker(settings);
+    }
+
+    /**
+     * Adds the regions of the sprite sheets and the used block.
+     * @throws IOException If an image could not be read.
+     */
+    public void addSheets() throws IOException {
+        for (String sheet : PackedAtlas.SHEETS) {
+            FileHandle file = new FileHandle(new File(assets, sheet + PackedAtlas.SHEET_EXTENSION));
+            TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(file, file.parent(), false);
+            for (TextureAtlas.TextureAtlasData.Page page : data.getPages()) {
+                image(page.textureFile.file());
+                texturesBefore++;
+            }
+            for (TextureAtlas.TextureAtlasData.Region region : data.getRegions()) {
+                if (region.rotate) {
+                    throw new GdxRuntimeException("Rotated region " + region.name + " in " + file + " is not supported");
+                }
+                BufferedImage page = image(region.page.textureFile.file());
+                String name = sheet + "/" + region.name + (region.index >= 0 ? "_" + region.index : "");
+                add(page.getSubimage(region.left, region.top, region.width, region.height), name);
+            }
+        }
+        add(image(new File(assets, PackedAtlas.USED_BLOCK + PackedAtlas.USED_BLOCK_EXTENSION)), PackedAtlas.USED_BLOCK);
+        texturesBefore++;
+    }
+
+    /**
+     * Adds the tiles the levels use.
+     * @throws IOException If a level or tileset could not be read.
+     */
+    public void addLevels() throws IOException {
+        Set<File> tilesets = new HashSet<File>();
+        for (File level : new File(assets, LEVELS).listFiles()) {
+            if (level.getName().endsWith(".tmx")) {
+                addLevel(level, tilesets);
+            }
+        }
+        texturesBefore += tilesets.size();
+    }
+
+    /**
+     * Adds the tiles a level uses.
+     * @param tmx The TMX file of the level.
+     * @param tilesets The tileset images that are used, the images of this level are added.
+     * @throws IOException If the level or a tileset could not be read.
+     */
+    private void addLevel(File tmx, Set<File> tilesets) throws IOException {
+        XmlReader.Element root;
+        InputStream in = new FileInputStream(tmx);
+        try {
+            root = xml.parse(in);
+        } finally {
+            in.close();
+        }
+        final Array<XmlReader.Element> sets = root.getChildrenByName("tileset");
+        for (int id : usedGids(root)) {
+            final XmlReader.Element tileset = LevelCompiler.tilesetOf(sets, id);
+            final String name = PackedAtlas.TILES_PREFIX + tileset.getAttribute("name", "");
+            final int index = id - tileset.getIntAttribute("firstgid", 1);
+            if (added.contains(name + "_" + index)) {
+                continue;
+            }
+            final File file = new File(tmx.getParentFile(), tileset.getChildByName("image").getAttribute("source"));
+            final BufferedImage image = image(file);
+            tilesets.add(file.getCanonicalFile());
+            final int tileWidth = tileset.getIntAttribute("tilewidth");
+            final int tileHeight = tileset.getIntAttribute("tileheight");
+            final int spacing = tileset.getIntAttribute("spacing", 0);
+            final int margin = tileset.getIntAttribute("margin", 0);
+            final int columns = (image.getWidth() - 2 * margin + spacing) / (tileWidth + spacing);
+            final int x = margin + index % columns * (tileWidth + spacing);
+            final int y = margin + index / columns * (tileHeight + spacing);
+            add(image.getSubimage(x, y, tileWidth, tileHeight), name + "_" + index);
+        }
+    }
+
+    /**
+     * Finds the gids a level uses, in its tile layers and as tile objects.
+     * @param root The root element of the TMX file.
+     * @return The used gids without flip flags, in ascending order.
+     * @throws IOException If the tile data could not be decoded.
+     */
+    static SortedSet<Integer> usedGids(XmlReader.Element root) throws IOException {
+        final SortedSet<Integer> gids = new TreeSet<Integer>();
+        final int count = root.getIntAttribute("width") * root.getIntAttribute("height");
+        for (XmlReader.Element layer : root.getChildrenByName("layer")) {
+            for (int gid : LevelCompiler.readGids(layer.getChildByName("data"), count)) {
+                if ((gid & ~BinaryMapLoader.FLAG_MASK) != 0) {
+                    gids.add(gid & ~BinaryMapLoader.FLAG_MASK);
+                }
+            }
+        }
+        for (XmlReader.Element group : root.getChildrenByName("objectgroup")) {
+            for (XmlReader.Element object : group.getChildrenByName("object")) {
+                final int gid = (int) Long.parseLong(object.getAttribute("gid", "0"));
+                if ((gid & ~BinaryMapLoader.FLAG_MASK) != 0) {
+                    gids.add(gid & ~BinaryMapLoader.FLAG_MASK);
+                }
+            }
+        }
+        return gids;
+    }
+
+    /**
+     * Packs the added images into the atlas and reports how many textures the sprites are
+     * spread over. The atlas and pages of an earlier run are deleted first, because the packer
+     * adds to an atlas that exists.
+     * @throws IOException If the old atlas could not be deleted.
+     */
+    public void pack() throws IOException {
+        File atlas = new File(assets, PackedAtlas.ATLAS);
+        String name = atlas.getName();
+        String prefix = name.substring(0, name.lastIndexOf('.'));
+        deleteOutput(atlas.getParentFile(), prefix);
+        packer.pack(atlas.getParentFile(), prefix);
+        TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(new FileHandle(atlas),
+                new FileHandle(atlas.getParentFile()), false);
+        System.out.println("Packed " + added.size() + " regions from " + texturesBefore + " textures into "
+                + data.getPages().size + " page(s) of " + atlas);
+    }
+
+    /**
+     * Deletes the atlas and the pages an earlier run wrote.
+     * @param directory The directory of the atlas.
+     * @param prefix The name of the atlas without extension, the pages start with it as well.
+     * @throws IOException If a file could not be deleted.
+     */
+    private static void deleteOutput(File directory, String prefix) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            final String name = file.getName();
+            if (name.startsWith(prefix) && (name.endsWith(".atlas") || name.endsWith(".png")) && !file.delete()) {
+                throw new IOException("Can not delete " + file);
+            }
+        }
+    }
+
+    /**
+     * Adds an image to the packer.
+     * @param image The image.
+     * @param name The name of the region, an index is given as a suffix of an underscore and
+     *             the index.
+     */
+    private void add(BufferedImage image, String name) {
+        if (added.add(name)) {
+            packer.addImage(image, name);
+        }
+    }
+
+    /**
+     * Reads an image, every image is read only once.
+     * @param file The image file.
+     * @return The image.
+     * @throws IOException If the image could not be read.
+     */
+    private BufferedImage image(File file) throws IOException {
+        final File key = file.getCanonicalFile();
+        BufferedImage image = images.get(key);
+        if (image == null) {
+            image = ImageIO.read(key);
+            if (image == null) {
+                throw new IOException("Can not read image " + file);
+            }
+            images.put(key, image);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,402 @@
+package com.mariobros.pipeline;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Base64Coder;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.XmlReader;
+import com.mariobros.tools.BinaryMapLoader;
+import com.mariobros.tools.PackedAtlas;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compiles TMX levels into the binary level format read by {@link BinaryMapLoader}. Every
+ * argument is a TMX file or a directory whose TMX files are compiled. The binary level is
+ * written next to the TMX file. With {@code --atlas <file>} before the levels, the levels take
+ * their tiles from the atlas packed by the {@link AtlasPacker} instead of the tileset images.
+ *
+ * @since 1.0
+ * @version 1.0
+ *
+ * @author stefan boodt
+ */
+public class LevelCompiler {
+
+    /**
+     * The parser for the TMX files.
+     */
+    private final XmlReader xml = new XmlReader();
+
+    /**
+     * The atlas the tiles come from, or null to use the tileset images.
+     */
+    private File atlas;
+
+    /**
+     * The names of the regions in the atlas, with the indices that exist for every name.
+     */
+    private final Map<String, Set<Integer>> atlasRegions = new HashMap<String, Set<Integer>>();
+
+    public static void main(String[] args) throws IOException {
+        LevelCompiler compiler = new LevelCompiler();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--atlas")) {
+                compiler.setAtlas(new File(args[++i]));
+                continue;
+            }
+            File file = new File(args[i]);
+            if (file.isDirectory()) {
+                for (File child : file.listFiles()) {
+                    if (child.getName().endsWith(".tmx")) {
+                        compiler.compile(child);
+                    }
+                }
+            } else {
+                compiler.compile(file);
+            }
+        }
+    }
+
+    /**
+     * Makes the compiled levels take their tiles from an atlas.
+     * @param atlas The atlas.
+     */
+    public void setAtlas(File atlas) {
+        this.atlas = atlas;
+        atlasRegions.clear();
+        TextureAtlas.TextureAtlasData data = new TextureAtlas.TextureAtlasData(new FileHandle(atlas),
+                new FileHandle(atlas.getParentFile()), false);
+        for (TextureAtlas.TextureAtlasData.Region region : data.getRegions()) {
+            Set<Integer> indices = atlasRegions.get(region.name);
+            if (indices == null) {
+                indices = new HashSet<Integer>();
+                atlasRegions.put(region.name, indices);
+            }
+            indices.add(region.index);
+        }
+    }
+
+    /**
+     * Returns the binary level file for a TMX file.
+     * @param tmx The TMX file.
+     * @return The file the binary level is written to.
+     */
+    public static File outputFor(File tmx) {
+        String name = tmx.getName();
+        return new File(tmx.getParentFile(), name.substring(0, name.lastIndexOf('.')) + BinaryMapLoader.EXTENSION);
+    }
+
+    /**
+     * Compiles a TMX file into a binary level next to it.
+     * @param tmx The TMX file.
+     * @throws IOException If the file could not be read or written.
+     */
+    public void compile(File tmx) throws IOException {
+        File output = outputFor(tmx);
+        XmlReader.Element root;
+        InputStream in = new FileInputStream(tmx);
+        try {
+            root = xml.parse(in);
+        } finally {
+            in.close();
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+        try {
+            write(tmx, root, out);
+        } finally {
+            out.close();
+        }
+        System.out.println(tmx.getName() + " (" + tmx.length() + " bytes) -> " + output.getName()
+                + " (" + output.length() + " bytes)");
+    }
+
+    /**
+     * Writes the map in the binary level format.
+     * @param tmx The TMX file.
+     * @param root The root element of the TMX file.
+     * @param out The stream to write to.
+     * @throws IOException If the level could not be written.
+     */
+    private void write(File tmx, XmlReader.Element root, DataOutputStream out) throws IOException {
+        if (!"orthogonal".equals(root.getAttribute("orientation", "orthogonal"))) {
+            throw new GdxRuntimeException("Only orthogonal maps are supported");
+        }
+        final int width = root.getIntAttribute("width");
+        final int height = root.getIntAttribute("height");
+        final int tileHeight = root.getIntAttribute("tileheight");
+        out.writeInt(BinaryMapLoader.MAGIC);
+        out.writeInt(BinaryMapLoader.VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(root.getIntAttribute("tilewidth"));
+        out.writeInt(tileHeight);
+        if (atlas != null) {
+            checkAtlas(root, width * height);
+            writeString(out, relativePath(tmx.getAbsoluteFile().getParentFile(), atlas.getAbsoluteFile()));
+        } else {
+            writeString(out, "");
+        }
+
+        out.writeInt(root.getChildrenByName("tileset").size);
+        for (XmlReader.Element tileset : root.getChildrenByName("tileset")) {
+            if (tileset.getAttribute("source", null) != null) {
+                throw new GdxRuntimeException("External tilesets are not supported");
+            }
+            writeString(out, tileset.getAttribute("name", ""));
+            out.writeInt(tileset.getIntAttribute("firstgid", 1));
+            out.writeInt(tileset.getIntAttribute("tilewidth"));
+            out.writeInt(tileset.getIntAttribute("tileheight"));
+            out.writeInt(tileset.getIntAttribute("spacing", 0));
+            out.writeInt(tileset.getIntAttribute("margin", 0));
+            writeString(out, tileset.getChildByName("image").getAttribute("source"));
+        }
+
+        int layers = 0;
+        for (int i = 0; i < root.getChildCount(); i++) {
+            String name = root.getChild(i).getName();
+            if (name.equals("layer") || name.equals("objectgroup")) {
+                layers++;
+            }
+        }
+        out.writeInt(layers);
+        for (int i = 0; i < root.getChildCount(); i++) {
+            XmlReader.Element layer = root.getChild(i);
+            if (layer.getName().equals("layer")) {
+                writeLayerHeader(out, BinaryMapLoader.LAYER_TILES, layer);
+                writeTiles(out, layer, width * height);
+            } else if (layer.getName().equals("objectgroup")) {
+                writeLayerHeader(out, BinaryMapLoader.LAYER_OBJECTS, layer);
+                writeObjects(out, layer, height * tileHeight);
+            }
+        }
+    }
+
+    /**
+     * Checks that the atlas has a region for every tile the map uses.
+     * @param root The root element of the TMX file.
+     * @param count The number of tiles in a layer.
+     * @throws IOException If the tile data could not be decoded.
+     * @throws GdxRuntimeException If a tile is missing from the atlas.
+     */
+    private void checkAtlas(XmlReader.Element root, int count) throws IOException {
+        final Array<XmlReader.Element> tilesets = root.getChildrenByName("tileset");
+        for (XmlReader.Element layer : root.getChildrenByName("layer")) {
+            for (int gid : readGids(layer.getChildByName("data"), count)) {
+                final int id = gid & ~BinaryMapLoader.FLAG_MASK;
+                if (id == 0) {
+                    continue;
+                }
+                final XmlReader.Element tileset = tilesetOf(tilesets, id);
+                final String name = PackedAtlas.TILES_PREFIX + tileset.getAttribute("name", "");
+                final int index = id - tileset.getIntAttribute("firstgid", 1);
+                final Set<Integer> indices = atlasRegions.get(name);
+                if (indices == null || !indices.contains(index)) {
+                    throw new GdxRuntimeException("Tile " + index + " of " + name + " is not in " + atlas
+                            + ", pack the atlas again");
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the tileset a gid belongs to.
+     * @param tilesets The tileset elements, ordered by first gid.
+     * @param gid The gid without flags.
+     * @return The tileset with the highest first gid that is not above the gid.
+     */
+    static XmlReader.Element tilesetOf(Array<XmlReader.Element> tilesets, int gid) {
+        XmlReader.Element result = null;
+        for (XmlReader.Element tileset : tilesets) {
+            if (tileset.getIntAttribute("firstgid", 1) <= gid) {
+                result = tileset;
+            }
+        }
+        if (result == null) {
+            throw new GdxRuntimeException("No tileset for gid " + gid);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the path of a file relative to a directory, with / as separator.
+     * @param directory The directory.
+     * @param file The file.
+     * @return The relative path.
+     */
+    static String relativePath(File directory, File file) {
+        final String[] from = directory.getPath().split("[/\\\\]");
+        final String[] to = file.getPath().split("[/\\\\]");
+        int common = 0;
+        while (common < from.length && common < to.length - 1 && from[common].equals(to[common])) {
+            common++;
+        }
+        StringBuilder path = new StringBuilder();
+        for (int i = common; i < from.length; i++) {
+            path.append("../");
+        }
+        for (int i = common; i < to.length; i++) {
+            path.append(to[i]);
+            if (i < to.length - 1) {
+                path.append('/');
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * Writes the part that all layers have in common.
+     * @param out The stream to write to.
+     * @param type The type of the layer.
+     * @param layer The layer element.
+     * @throws IOException If the layer could not be written.
+     */
+    private void writeLayerHeader(DataOutputStream out, byte type, XmlReader.Element layer) throws IOException {
+        out.writeByte(type);
+        writeString(out, layer.getAttribute("name", ""));
+        out.writeByte(layer.getIntAttribute("visible", 1));
+        out.writeFloat(layer.getFloatAttribute("opacity", 1.0f));
+    }
+
+    /**
+     * Writes the gids of a layer of tiles. Gids are packed into shorts when they all fit.
+     * @param out The stream to write to.
+     * @param layer The layer element.
+     * @param count The number of tiles in the layer.
+     * @throws IOException If the layer could not be written.
+     */
+    private void writeTiles(DataOutputStream out, XmlReader.Element layer, int count) throws IOException {
+        final int[] gids = readGids(layer.getChildByName("data"), count);
+        boolean wide = false;
+        for (int gid : gids) {
+            wide |= (gid & 0xFFFF0000) != 0;
+        }
+        out.writeByte(wide ? 4 : 2);
+        for (int gid : gids) {
+            if (wide) {
+                out.writeInt(gid);
+            } else {
+                out.writeShort(gid);
+            }
+        }
+    }
+
+    /**
+     * Reads the gids of a layer, in any of the encodings Tiled writes.
+     * @param data The data element of the layer.
+     * @param count The number of tiles in the layer.
+     * @return The gids, top row first.
+     * @throws IOException If the data could not be decoded.
+     */
+    static int[] readGids(XmlReader.Element data, int count) throws IOException {
+        final int[] gids = new int[count];
+        final String encoding = data.getAttribute("encoding", null);
+        if (encoding == null) {
+            for (int i = 0; i < count; i++) {
+                gids[i] = (int) Long.parseLong(data.getChild(i).getAttribute("gid", "0"));
+            }
+        } else if (encoding.equals("csv")) {
+            String[] values = data.getText().split(",");
+            for (int i = 0; i < count; i++) {
+                gids[i] = (int) Long.parseLong(values[i].trim());
+            }
+        } else if (encoding.equals("base64")) {
+            InputStream in = new ByteArrayInputStream(Base64Coder.decode(data.getText().trim()));
+            String compression = data.getAttribute("compression", null);
+            if ("zlib".equals(compression)) {
+                in = new InflaterInputStream(in);
+            } else if ("gzip".equals(compression)) {
+                in = new GZIPInputStream(in);
+            } else if (compression != null) {
+                throw new GdxRuntimeException("Unsupported compression " + compression);
+            }
+            final byte[] bytes = new byte[4];
+            for (int i = 0; i < count; i++) {
+                int read = 0;
+                while (read < 4) {
+                    int n = in.read(bytes, read, 4 - read);
+                    if (n < 0) {
+                        throw new GdxRuntimeException("Tile data ended after " + i + " tiles");
+                    }
+                    read += n;
+                }
+                gids[i] = (bytes[0] & 0xFF) | (bytes[1] & 0xFF) << 8 | (bytes[2] & 0xFF) << 16 | (bytes[3] & 0xFF) << 24;
+            }
+            in.close();
+        } else {
+            throw new GdxRuntimeException("Unsupported encoding " + encoding);
+        }
+        return gids;
+    }
+
+    /**
+     * Writes the rectangles of an object layer. Objects that are not rectangles are skipped.
+     * @param out The stream to write to.
+     * @param layer The layer element.
+     * @param mapHeight The height of the map in pixels, used to make y point up.
+     * @throws IOException If the layer could not be written.
+     */
+    private void writeObjects(DataOutputStream out, XmlReader.Element layer, int mapHeight) throws IOException {
+        int count = 0;
+        for (XmlReader.Element object : layer.getChildrenByName("object")) {
+            if (isRectangle(object)) {
+                count++;
+            } else {
+                System.err.println("Skipping object " + object.getAttribute("id", "?") + " in "
+                        + layer.getAttribute("name", "") + ", only rectangles are supported");
+            }
+        }
+        out.writeInt(count);
+        for (XmlReader.Element object : layer.getChildrenByName("object")) {
+            if (isRectangle(object)) {
+                out.writeInt(object.getIntAttribute("id", 0));
+            }
+        }
+        for (XmlReader.Element object : layer.getChildrenByName("object")) {
+            if (isRectangle(object)) {
+                final float width = object.getFloatAttribute("width", 0);
+                final float height = object.getFloatAttribute("height", 0);
+                out.writeFloat(object.getFloatAttribute("x", 0));
+                out.writeFloat(mapHeight - object.getFloatAttribute("y", 0) - height);
+                out.writeFloat(width);
+                out.writeFloat(height);
+            }
+        }
+    }
+
+    /**
+     * Checks if an object is a plain rectangle.
+     * @param object The object element.
+     * @return true if the object is a rectangle.
+     */
+    private boolean isRectangle(XmlReader.Element object) {
+        return object.getAttribute("gid", null) == null && (object.getChildCount() == 0
+                || object.getChildCount() == 1 && object.getChild(0).getName().equals("properties"));
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes.
+     * @param out The stream to write to.
+     * @param value The string to write.
+     * @throws IOException If the string could not be written.
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes("UTF-8");
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}